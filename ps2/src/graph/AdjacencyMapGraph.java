@@ -0,0 +1,316 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * An implementation of Graph that indexes edges by both endpoints.
+ * 
+ * <p>Every vertex has a hash map of its outgoing edges and a hash map of its
+ * incoming edges, so set() is O(1), sources() and targets() are O(degree) and
+ * remove() is O(in-degree + out-degree), instead of the O(E) or O(V) scans of
+ * ConcreteEdgesGraph and ConcreteVerticesGraph.
+ * 
+ * <p>Degrees, edgeCount() and totalWeight() are O(1). topEdges() and
+ * topTargets() build a weight index on first use, which every later mutation
+ * keeps up to date, so repeated queries cost O(k + log W) for W distinct weights.
+ */
+public class AdjacencyMapGraph<L> implements Graph<L> {
+    
+    private final Map<L, Map<L, Integer>> outgoing = new HashMap<>();
+    private final Map<L, Map<L, Integer>> incoming = new HashMap<>();
+    private int edgeCount = 0;
+    private long totalWeight = 0;
+    // built on the first topEdges() or topTargets(source), then kept up to date
+    private WeightIndex<WeightedEdge<L>> edgeIndex = null;
+    private final Map<L, WeightIndex<L>> targetIndexes = new HashMap<>();
+    
+    // Abstraction function:
+    //      represents the weighted directed graph whose vertices are the keys of
+    //      outgoing, with an edge from s to t of weight w iff outgoing.get(s).get(t) == w.
+    // Representation invariant:
+    //      outgoing and incoming have the same key set.
+    //      outgoing.get(s).get(t) == w iff incoming.get(t).get(s) == w.
+    //      Every weight is positive.
+    //      edgeCount and totalWeight are the number and total weight of the edges.
+    //      edgeIndex is null or indexes every edge by weight; every targetIndexes
+    //        key is a vertex, and its value indexes that vertex's targets by weight.
+    // Safety from rep exposure:
+    //      All fields are private; outgoing, incoming and targetIndexes are final,
+    //        and edgeCount, totalWeight and edgeIndex are never returned;
+    //      inner maps are only returned as copies or unmodifiable views,
+    //        and index entries only in new lists of immutable WeightedEdges.
+    
+    // constructor
+    public AdjacencyMapGraph() {}
+    
+    // checkRep for the edge source -> target that a mutation touched, O(1) so it
+    // can run on every mutation; the edges of both vertices are also checked,
+    // in O(degree), only when RepChecks.EXPENSIVE
+    private void checkRep(L source, L target) {
+        assert outgoing.keySet().size() == incoming.keySet().size();
+        assert edgeCount >= 0 && totalWeight >= edgeCount;
+        Map<L, Integer> targets = outgoing.get(source);
+        Map<L, Integer> sources = incoming.get(target);
+        if (targets != null && sources != null) {
+            Integer weight = targets.get(target);
+            assert weight == null || weight > 0;
+            assert Objects.equals(weight, sources.get(source));
+        }
+        if (RepChecks.EXPENSIVE) {
+            assert outgoing.keySet().containsAll(targetIndexes.keySet());
+            checkVertex(source);
+            checkVertex(target);
+        }
+    }
+    
+    // checkRep for the edges of one vertex, O(degree)
+    private void checkVertex(L vertex) {
+        Map<L, Integer> targets = outgoing.get(vertex);
+        Map<L, Integer> sources = incoming.get(vertex);
+        assert (targets == null) == (sources == null);
+        if (targets == null) {
+            return;
+        }
+        for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+            assert edge.getValue() > 0;
+            assert edge.getValue().equals(incoming.get(edge.getKey()).get(vertex));
+        }
+        for (Map.Entry<L, Integer> edge : sources.entrySet()) {
+            assert edge.getValue().equals(outgoing.get(edge.getKey()).get(vertex));
+        }
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        if (outgoing.containsKey(vertex)) {
+            return false;
+        }
+        outgoing.put(vertex, new HashMap<>());
+        incoming.put(vertex, new HashMap<>());
+        checkRep(vertex, vertex);
+        return true;
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative");
+        }
+        Integer previous;
+        if (weight > 0) {
+            add(source);
+            add(target);
+            previous = outgoing.get(source).put(target, weight);
+            incoming.get(target).put(source, weight);
+        } else {
+            Map<L, Integer> targets = outgoing.get(source);
+            if (targets == null || !targets.containsKey(target)) {
+                return 0;
+            }
+            previous = targets.remove(target);
+            incoming.get(target).remove(source);
+        }
+        edgeChanged(source, target, previous == null ? 0 : previous, weight);
+        checkRep(source, target);
+        return previous == null ? 0 : previous;
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        Map<L, Integer> targets = outgoing.remove(vertex);
+        if (targets == null) {
+            return false;
+        }
+        Map<L, Integer> sources = incoming.remove(vertex);
+        for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+            edgeChanged(vertex, edge.getKey(), edge.getValue(), 0);
+        }
+        for (Map.Entry<L, Integer> edge : sources.entrySet()) {
+            if (!edge.getKey().equals(vertex)) { // self-loop already counted
+                edgeChanged(edge.getKey(), vertex, edge.getValue(), 0);
+            }
+        }
+        targetIndexes.remove(vertex);
+        for (L target : targets.keySet()) {
+            Map<L, Integer> targetSources = incoming.get(target);
+            if (targetSources != null) { // null for a self-loop
+                targetSources.remove(vertex);
+            }
+        }
+        for (L source : sources.keySet()) {
+            Map<L, Integer> sourceTargets = outgoing.get(source);
+            if (sourceTargets != null) {
+                sourceTargets.remove(vertex);
+            }
+        }
+        assert outgoing.keySet().size() == incoming.keySet().size();
+        return true;
+    }
+    
+    // update the aggregates for the edge source -> target changing weight (0 = no edge)
+    private void edgeChanged(L source, L target, int oldWeight, int newWeight) {
+        if (oldWeight == newWeight) {
+            return;
+        }
+        totalWeight += newWeight - oldWeight;
+        if (oldWeight == 0) {
+            edgeCount++;
+        } else if (newWeight == 0) {
+            edgeCount--;
+        }
+        if (edgeIndex != null) {
+            if (oldWeight > 0) {
+                edgeIndex.remove(new WeightedEdge<>(source, target, oldWeight), oldWeight);
+            }
+            if (newWeight > 0) {
+                edgeIndex.add(new WeightedEdge<>(source, target, newWeight), newWeight);
+            }
+        }
+        WeightIndex<L> targetIndex = targetIndexes.get(source);
+        if (targetIndex != null) {
+            if (oldWeight > 0) {
+                targetIndex.remove(target, oldWeight);
+            }
+            if (newWeight > 0) {
+                targetIndex.add(target, newWeight);
+            }
+        }
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        // defensive copying
+        return new HashSet<>(outgoing.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? new HashMap<>() : new HashMap<>(sources);
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? new HashMap<>() : new HashMap<>(targets);
+    }
+    
+    @Override
+    public Set<L> vertexView() {
+        return Collections.unmodifiableSet(outgoing.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sourceView(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? Collections.emptyMap() : Collections.unmodifiableMap(sources);
+    }
+    
+    @Override
+    public Map<L, Integer> targetView(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? Collections.emptyMap() : Collections.unmodifiableMap(targets);
+    }
+    
+    @Override
+    public int targetCount(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? 0 : targets.size();
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? 0 : sources.size();
+    }
+    
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+    
+    @Override
+    public long totalWeight() {
+        return totalWeight;
+    }
+    
+    /*
+     * O(k + log W) after the first call, which indexes all edges in O(E log W).
+     */
+    @Override
+    public List<WeightedEdge<L>> topEdges(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        if (edgeIndex == null) {
+            edgeIndex = new WeightIndex<>();
+            for (Map.Entry<L, Map<L, Integer>> vertex : outgoing.entrySet()) {
+                for (Map.Entry<L, Integer> edge : vertex.getValue().entrySet()) {
+                    edgeIndex.add(new WeightedEdge<>(vertex.getKey(), edge.getKey(), edge.getValue()),
+                            edge.getValue());
+                }
+            }
+        }
+        List<WeightedEdge<L>> top = new ArrayList<>();
+        edgeIndex.visitTop(k, (edge, weight) -> top.add(edge));
+        return top;
+    }
+    
+    /*
+     * O(k + log W) after the first call for source, which indexes its targets.
+     */
+    @Override
+    public List<WeightedEdge<L>> topTargets(L source, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        Map<L, Integer> targets = outgoing.get(source);
+        if (targets == null) {
+            return new ArrayList<>();
+        }
+        WeightIndex<L> targetIndex = targetIndexes.get(source);
+        if (targetIndex == null) {
+            targetIndex = new WeightIndex<>();
+            for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                targetIndex.add(edge.getKey(), edge.getValue());
+            }
+            targetIndexes.put(source, targetIndex);
+        }
+        List<WeightedEdge<L>> top = new ArrayList<>();
+        targetIndex.visitTop(k, (target, weight) -> top.add(new WeightedEdge<>(source, target, weight)));
+        return top;
+    }
+    
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        Map<L, Integer> sources = incoming.get(target);
+        if (sources != null) {
+            sources.forEach(visitor::visit);
+        }
+    }
+    
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        Map<L, Integer> targets = outgoing.get(source);
+        if (targets != null) {
+            targets.forEach(visitor::visit);
+        }
+    }
+    
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<L, Map<L, Integer>> vertex : outgoing.entrySet()) {
+            for (Map.Entry<L, Integer> edge : vertex.getValue().entrySet()) {
+                output.append("(").append(vertex.getKey()).append(") --[").append(edge.getValue())
+                        .append("]--> (").append(edge.getKey()).append(")\n");
+            }
+        }
+        return output.toString();
+    }
+    
+}
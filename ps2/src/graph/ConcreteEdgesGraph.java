@@ -23,13 +23,18 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     //      There is only one edge between two vertices.
     // Safety from rep exposure:
     //      All fields are private and final;
-    //      Use defensive copying for mutable fields.
+    //      Use defensive copying for mutable fields,
+    //      or unmodifiable views in vertexView().
     //      Edge is immutable.
 
     // constructor
     public ConcreteEdgesGraph() {}
 
+    // O(E), so it only runs when RepChecks.EXPENSIVE
     private void checkRep() {
+        if (!RepChecks.EXPENSIVE) {
+            return;
+        }
         Set<L> edgeVertices = new HashSet<>();
         for (Edge<L> edge : edges) {
             assert edge.getWeight() > 0;
@@ -81,21 +86,61 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return previousWeight;
     }
     
+    /*
+     * Applies the batch against a hash index of the existing edges, so it
+     * costs O(E + batch) instead of an O(E) scan and rep check per edge.
+     */
+    @Override
+    public void setAll(Iterable<? extends WeightedEdge<? extends L>> newEdges) {
+        // index.get(source).get(target) is the position of that edge in edges
+        Map<L, Map<L, Integer>> index = new HashMap<>();
+        for (int i = 0; i < edges.size(); i++) {
+            Edge<L> edge = edges.get(i);
+            index.computeIfAbsent(edge.getSource(), s -> new HashMap<>()).put(edge.getTarget(), i);
+        }
+        boolean removed = false;
+        try {
+            for (WeightedEdge<? extends L> edge : newEdges) {
+                L source = edge.getSource();
+                L target = edge.getTarget();
+                int weight = edge.getWeight();
+                if (weight < 0) {
+                    throw new IllegalArgumentException("negative weight: " + edge);
+                }
+                Map<L, Integer> targets = index.get(source);
+                Integer position = targets == null ? null : targets.get(target);
+                if (weight > 0) {
+                    vertices.add(source);
+                    vertices.add(target);
+                    if (position != null) {
+                        edges.set(position, new Edge<>(source, target, weight));
+                    } else {
+                        index.computeIfAbsent(source, s -> new HashMap<>()).put(target, edges.size());
+                        edges.add(new Edge<>(source, target, weight));
+                    }
+                } else if (position != null) {
+                    // leave a hole so the other positions stay valid
+                    edges.set(position, null);
+                    targets.remove(target);
+                    removed = true;
+                }
+            }
+        } finally {
+            if (removed) {
+                edges.removeIf(Objects::isNull);
+            }
+            checkRep();
+        }
+    }
+    
     @Override
     public boolean remove(L vertex) {
         if (!vertices.contains(vertex)) {
             return false;
         }
         vertices.remove(vertex);
-        Edge<L> foundEdge = null;
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(vertex) || edge.getTarget().equals(vertex)) {
-                foundEdge = edge;
-            }
-        }
-        if (foundEdge != null) {
-            edges.remove(foundEdge);
-        }
+        // one O(E) pass removing every edge to or from the vertex
+        edges.removeIf(edge -> edge.getSource().equals(vertex) || edge.getTarget().equals(vertex));
         checkRep();
         return true;
     }
@@ -128,6 +173,83 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return results;
     }
 
+    @Override
+    public Set<L> vertexView() {
+        return Collections.unmodifiableSet(vertices);
+    }
+    
+    /*
+     * The aggregates below take one pass over the edge list, without the copies
+     * of targets() and sources() that the default implementations would make
+     * for every vertex.
+     */
+    
+    @Override
+    public int targetCount(L source) {
+        int count = 0;
+        for (Edge<L> edge : edges) {
+            if (edge.getSource().equals(source)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        int count = 0;
+        for (Edge<L> edge : edges) {
+            if (edge.getTarget().equals(target)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int edgeCount() {
+        return edges.size();
+    }
+    
+    @Override
+    public long totalWeight() {
+        long total = 0;
+        for (Edge<L> edge : edges) {
+            total += edge.getWeight();
+        }
+        return total;
+    }
+    
+    @Override
+    public List<WeightedEdge<L>> topEdges(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        List<WeightedEdge<L>> all = new ArrayList<>();
+        for (Edge<L> edge : edges) {
+            all.add(new WeightedEdge<>(edge.getSource(), edge.getTarget(), edge.getWeight()));
+        }
+        return WeightIndex.heaviest(all, k);
+    }
+    
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        for (Edge<L> edge : edges) {
+            if (edge.getTarget().equals(target)) {
+                visitor.visit(edge.getSource(), edge.getWeight());
+            }
+        }
+    }
+    
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        for (Edge<L> edge : edges) {
+            if (edge.getSource().equals(source)) {
+                visitor.visit(edge.getTarget(), edge.getWeight());
+            }
+        }
+    }
+
     @Override
     public String toString() {
         // Use StringBuilder to efficiently concatenate strings
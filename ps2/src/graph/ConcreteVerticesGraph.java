@@ -9,123 +9,208 @@ import java.util.*;
  * An implementation of Graph.
  * 
  * <p>PS2 instructions: you MUST use the provided rep.
+ * 
+ * <p>Vertices are found through a hash index of their positions in the list,
+ * and every vertex records its incoming as well as its outgoing edges, so
+ * set() and the observers are O(1) or O(degree), and remove() is
+ * O(in-degree + out-degree) and leaves no edge pointing at the removed vertex.
+ * Each mutation checks only the edge it changed, unless RepChecks.EXPENSIVE.
  */
 public class ConcreteVerticesGraph<L> implements Graph<L> {
     
     private final List<Vertex<L>> vertices = new ArrayList<>();
+    private final Map<L, Integer> positions = new HashMap<>();
     
     // Abstraction function:
-    //      represents the weighted directed graph.
+    //      represents the weighted directed graph whose vertices are the labels of
+    //      the elements of vertices, with an edge from s to t of weight w iff the
+    //      vertex labelled s has target t with weight w.
     // Representation invariant:
     //      There is no redundant element in the list of vertices.
+    //      positions maps the label of vertices.get(i) to i, and has no other keys.
     //      The weight of an edge must be positive.
+    //      Vertex s has target t with weight w iff vertex t has source s with weight w,
+    //        so every edge is known to both of its endpoints.
     // Safety from rep exposure:
     //      All fields are private and final.
-    //      Vertex is immutable.
+    //      Vertex is only exposed through labels, copies and unmodifiable views.
     
     // constructor
     public ConcreteVerticesGraph() {}
     
-    // checkRep
+    // checkRep, O(V + E) so it only runs when RepChecks.EXPENSIVE
     private void checkRep() {
-        Set<L> VerticesLabels = new HashSet<>();
-        for (Vertex<L> vertex : vertices) {
-            VerticesLabels.add(vertex.getLabel());
+        if (!RepChecks.EXPENSIVE) {
+            return;
+        }
+        assert positions.size() == vertices.size();
+        for (int i = 0; i < vertices.size(); i++) {
+            Vertex<L> vertex = vertices.get(i);
+            assert positions.get(vertex.getLabel()) == i;
+            for (Map.Entry<L, Integer> edge : vertex.getEdgesView().entrySet()) {
+                assert find(edge.getKey()).getSourceWeight(vertex.getLabel()) == edge.getValue();
+            }
+            for (Map.Entry<L, Integer> edge : vertex.getSourcesView().entrySet()) {
+                assert find(edge.getKey()).getWeight(vertex.getLabel()) == edge.getValue();
+            }
         }
-        assert VerticesLabels.size() == vertices.size();
+    }
+    
+    // the vertex with a label, or null if there is none
+    private Vertex<L> find(L label) {
+        Integer position = positions.get(label);
+        return position == null ? null : vertices.get(position);
+    }
+    
+    // the vertex with a label, added if there is none
+    private Vertex<L> findOrAdd(L label) {
+        Vertex<L> vertex = find(label);
+        if (vertex == null) {
+            vertex = new Vertex<>(label);
+            positions.put(label, vertices.size());
+            vertices.add(vertex);
+        }
+        return vertex;
     }
     
     @Override public boolean add(L vertex) {
-        for (Vertex<L> vertex1 : vertices) {
-            if (vertex1.getLabel().equals(vertex)) {
-                return false;
-            }
+        if (positions.containsKey(vertex)) {
+            return false;
         }
-        vertices.add(new Vertex<>(vertex));
+        findOrAdd(vertex);
         return true;
     }
 
     @Override
     public int set(L source, L target, int weight) {
-        // find source
-        boolean sourceExists = false;
-        Vertex<L> sourceVertex = null;
-        for (Vertex<L>vertex1 : vertices) {
-            if (vertex1.getLabel().equals(source)) {
-                sourceExists = true;
-                sourceVertex = vertex1;
-                break;
-            }
-        }
-        // if weight > 0, and source does not exist, create the source vertex
-        if (!sourceExists && weight > 0) {
-            sourceVertex = new Vertex<>(source);
-            vertices.add(sourceVertex);
-            sourceExists = true;
-        }
-        // 3. find targets
-        boolean targetExists = false;
-        for (Vertex<L> vertex1 : vertices) {
-            if (vertex1.getLabel().equals(target)) {
-                targetExists = true;
-                break;
-            }
+        int previous = setEdge(source, target, weight);
+        checkRep();
+        return previous;
+    }
+    
+    // set() without checkRep(), O(1) unless RepChecks.EXPENSIVE
+    private int setEdge(L source, L target, int weight) {
+        if (weight > 0) {
+            Vertex<L> sourceVertex = findOrAdd(source);
+            findOrAdd(target).setSource(source, weight);
+            return sourceVertex.setEdge(target, weight);
         }
-        // 4. if weight > 0, and target doesn't exist, create it
-        if (!targetExists && weight > 0) {
-            vertices.add(new Vertex<>(target));
+        Vertex<L> sourceVertex = find(source);
+        if (sourceVertex == null || sourceVertex.getWeight(target) == 0) {
+            return 0; // no such edge
         }
-        // 5. operate the edge
-        if (sourceExists) {
-            int prev = sourceVertex.setEdge(target, weight);
+        find(target).setSource(source, 0);
+        return sourceVertex.setEdge(target, 0);
+    }
+
+    /*
+     * Applies the batch with the same O(1) steps as set(), checking the rep
+     * only once at the end instead of after every edge.
+     */
+    @Override
+    public void setAll(Iterable<? extends WeightedEdge<? extends L>> edges) {
+        try {
+            for (WeightedEdge<? extends L> edge : edges) {
+                if (edge.getWeight() < 0) {
+                    throw new IllegalArgumentException("negative weight: " + edge);
+                }
+                setEdge(edge.getSource(), edge.getTarget(), edge.getWeight());
+            }
+        } finally {
             checkRep();
-            return prev;
-        } else {
-            return 0; // source does not exit
         }
     }
-
     
+    /*
+     * O(in-degree + out-degree): each neighbor is told to forget the vertex,
+     * and the vertex's slot in the list is filled by the last vertex.
+     */
     @Override public boolean remove(L vertex) {
-        for (Vertex<L> vertex1 : vertices) {
-            if (vertex1.getLabel().equals(vertex)) {
-                vertices.remove(vertex1);
-                return true;
+        Integer position = positions.remove(vertex);
+        if (position == null) {
+            return false;
+        }
+        Vertex<L> removed = vertices.get(position);
+        for (L target : removed.getTargets()) {
+            if (!target.equals(vertex)) {
+                find(target).setSource(vertex, 0);
             }
         }
-        return false;
+        for (L source : removed.getSourcesView().keySet()) {
+            if (!source.equals(vertex)) {
+                find(source).setEdge(vertex, 0);
+            }
+        }
+        Vertex<L> last = vertices.remove(vertices.size() - 1);
+        if (last != removed) {
+            vertices.set(position, last);
+            positions.put(last.getLabel(), position);
+        }
+        checkRep();
+        return true;
     }
     
     @Override public Set<L> vertices() {
-        Set<L> verticesLabels = new HashSet<>();
-        for (Vertex<L> vertex : vertices) {
-            verticesLabels.add(vertex.getLabel());
-        }
-        return verticesLabels;
+        return new HashSet<>(positions.keySet());
     }
     
     @Override public Map<L, Integer> sources(L target) {
-       Map<L, Integer> sources = new HashMap<>();
-        for (Vertex<L> vertex : vertices) {
-            Map<L, Integer> outEdges = vertex.getEdges();
-            for (L target1 : outEdges.keySet()) {
-                if (target1.equals(target)) {
-                    sources.put(vertex.getLabel(), outEdges.get(target1));
-                }
-            }
-        }
-        return sources;
+        Vertex<L> vertex = find(target);
+        return vertex == null ? new HashMap<>() : new HashMap<>(vertex.getSourcesView());
     }
     
     @Override
     public Map<L, Integer> targets(L source) {
-        Map<L, Integer> targets = new HashMap<>();
+        Vertex<L> vertex = find(source);
+        return vertex == null ? new HashMap<>() : vertex.getEdges();
+    }
+    
+    @Override
+    public Set<L> vertexView() {
+        return Collections.unmodifiableSet(positions.keySet());
+    }
+    
+    @Override
+    public int targetCount(L source) {
+        Vertex<L> vertex = find(source);
+        return vertex == null ? 0 : vertex.getEdgesView().size();
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        Vertex<L> vertex = find(target);
+        return vertex == null ? 0 : vertex.getSourcesView().size();
+    }
+    
+    @Override
+    public int edgeCount() {
+        int edges = 0;
         for (Vertex<L> vertex : vertices) {
-            if (vertex.getLabel().equals(source)) {
-                targets.putAll(vertex.getEdges());
-            }
+            edges += vertex.getEdgesView().size();
         }
-        return targets;
+        return edges;
+    }
+    
+    @Override
+    public Map<L, Integer> sourceView(L target) {
+        Vertex<L> vertex = find(target);
+        return vertex == null ? Collections.emptyMap() : vertex.getSourcesView();
+    }
+    
+    @Override
+    public Map<L, Integer> targetView(L source) {
+        Vertex<L> vertex = find(source);
+        return vertex == null ? Collections.emptyMap() : vertex.getEdgesView();
+    }
+    
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        sourceView(target).forEach(visitor::visit);
+    }
+    
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        targetView(source).forEach(visitor::visit);
     }
     
     // toString()
@@ -152,13 +237,16 @@ class Vertex<L> {
 
     private final L label;
     private final Map<L, Integer> targets = new HashMap<>();
+    private final Map<L, Integer> sources = new HashMap<>();
 
     // Abstraction function:
-    //      represents a vertex named 'label' with all the targets and the edge weights stored in 'targets'.
+    //      represents a vertex named 'label' with all the targets and the edge weights stored in 'targets',
+    //      and the sources of the edges into it and their weights stored in 'sources'.
     // Representation invariant:
     //      weight > 0
     // Safety from rep exposure:
     //      All fields are private and final.
+    //      targets and sources are only returned as copies or unmodifiable views.
     
     // constructor
     public Vertex(L label, Map<L, Integer> targets) {
@@ -170,11 +258,21 @@ class Vertex<L> {
         this.label = label;
     }
 
-    // checkRep
-    private void checkRep() {
+    // checkRep for the edge to or from neighbor in edges that a mutation touched,
+    // O(1); every edge of the vertex is also checked, in O(degree), only when
+    // RepChecks.EXPENSIVE
+    private void checkRep(L neighbor, Map<L, Integer> edges) {
+        Integer weight = edges.get(neighbor);
+        assert weight == null || weight > 0;
+        if (!RepChecks.EXPENSIVE) {
+            return;
+        }
         for (L target : targets.keySet()) {
             assert targets.get(target) > 0;
         }
+        for (L source : sources.keySet()) {
+            assert sources.get(source) > 0;
+        }
     }
     
     // methods
@@ -195,6 +293,23 @@ class Vertex<L> {
         return new HashMap<>(targets);
     }
 
+    /**
+     * Gets the edges that starts from the vertex, without copying.
+     * @return an unmodifiable live view of the edges
+     */
+    public Map<L, Integer> getEdgesView() {
+        return Collections.unmodifiableMap(targets);
+    }
+
+    /**
+     * Gets the weight of the edge to a target.
+     * @param target the label of target vertex
+     * @return the weight of the edge, or zero if there is no such edge
+     */
+    public int getWeight(L target) {
+        return targets.getOrDefault(target, 0);
+    }
+
     /**
      * If weight is nonzero, add an edge or update the weight of that edge;
      * vertices with the given labels are added to the graph if they do not already exist.
@@ -215,16 +330,48 @@ class Vertex<L> {
             if (targets.containsKey(target)) {
                 int prev = targets.get(target);
                 targets.put(target, weight);
-                checkRep();
+                checkRep(target, targets);
                 return prev;
             } else {
                 targets.put(target, weight);
-                checkRep();
+                checkRep(target, targets);
                 return 0;
             }
         }
     }
 
+    /**
+     * Gets the edges that end at the vertex, without copying.
+     * @return an unmodifiable live view of the sources and weights of those edges
+     */
+    public Map<L, Integer> getSourcesView() {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    /**
+     * Gets the weight of the edge from a source.
+     * @param source the label of source vertex
+     * @return the weight of the edge, or zero if there is no such edge
+     */
+    public int getSourceWeight(L source) {
+        return sources.getOrDefault(source, 0);
+    }
+
+    /**
+     * Record the edge from a source to this vertex: add it or update its weight
+     * if weight is nonzero, or remove it if weight is zero. Only this vertex's
+     * record of its incoming edges changes; the source records the same edge
+     * with setEdge().
+     * @param source the label of source vertex
+     * @param weight the weight of the edge
+     * @return the previous weight of the edge, or zero if there was no such edge
+     */
+    public int setSource(L source, int weight) {
+        Integer previous = weight == 0 ? sources.remove(source) : sources.put(source, weight);
+        checkRep(source, sources);
+        return previous == null ? 0 : previous;
+    }
+
     public boolean removeTarget(L target) {
         if (targets.containsKey(target)) {
             targets.remove(target);
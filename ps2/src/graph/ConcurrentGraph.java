@@ -0,0 +1,227 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A threadsafe implementation of Graph.
+ * 
+ * <p>Edges are indexed by both endpoints in ConcurrentHashMaps, so threads can
+ * add, update and query edges in parallel without external locking;
+ * addWeight() accumulates weights atomically, with no lost updates.
+ */
+public class ConcurrentGraph<L> implements Graph<L> {
+    
+    private final ConcurrentHashMap<L, ConcurrentHashMap<L, Integer>> outgoing = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<L, ConcurrentHashMap<L, Integer>> incoming = new ConcurrentHashMap<>();
+    private final ReadWriteLock vertexLock = new ReentrantReadWriteLock();
+    
+    // Abstraction function:
+    //      represents the weighted directed graph whose vertices are the keys of
+    //      outgoing, with an edge from s to t of weight w iff outgoing.get(s).get(t) == w.
+    // Representation invariant:
+    //      outgoing and incoming have the same key set.
+    //      outgoing.get(s).get(t) == w iff incoming.get(t).get(s) == w.
+    //      Every weight is positive.
+    //      (The invariant holds whenever no operation is in progress, so there is
+    //      no checkRep(): other threads may be mid-update whenever it would run.)
+    // Safety from rep exposure:
+    //      All fields are private and final; inner maps are only returned as
+    //      copies or unmodifiable views.
+    // Thread safety argument:
+    //      Every operation except remove() holds the read lock of vertexLock, so
+    //        they run in parallel; remove() holds the write lock, so no edge
+    //        operation can see a vertex half-removed or re-create its edges.
+    //      An edge s -> t only changes inside outgoing.get(s).compute(t, ...), which
+    //        also updates incoming.get(t); concurrent updates of one edge are
+    //        therefore serialized, and the two maps always change together.
+    //        Bins are always locked outgoing before incoming, so there is no deadlock.
+    //      Views and copies are weakly consistent: they never fail, but may or may
+    //        not reflect updates made during the read.
+    
+    // constructor
+    public ConcurrentGraph() {}
+    
+    @Override
+    public boolean add(L vertex) {
+        vertexLock.readLock().lock();
+        try {
+            return addVertex(vertex);
+        } finally {
+            vertexLock.readLock().unlock();
+        }
+    }
+    
+    // requires the read lock
+    private boolean addVertex(L vertex) {
+        if (outgoing.containsKey(vertex)) {
+            return false;
+        }
+        // incoming first, so a vertex visible in outgoing is always complete
+        incoming.putIfAbsent(vertex, new ConcurrentHashMap<>());
+        return outgoing.putIfAbsent(vertex, new ConcurrentHashMap<>()) == null;
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative");
+        }
+        int[] previous = { 0 };
+        update(source, target, weight > 0, old -> {
+            previous[0] = old;
+            return weight;
+        });
+        return previous[0];
+    }
+    
+    /**
+     * Atomically add delta to the weight of the edge from source to target,
+     * treating a missing edge as weight 0. If the result is positive the edge
+     * is added or updated, adding any missing vertices; if it is zero the edge
+     * is removed (and the graph is not otherwise modified).
+     * Concurrent calls on the same edge never lose an update.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add; requires the resulting weight is non-negative
+     * @return the new weight of the edge, or zero if there is no such edge
+     * @throws IllegalArgumentException if the resulting weight would be negative
+     */
+    @Override
+    public int addWeight(L source, L target, int delta) {
+        int[] result = { 0 };
+        update(source, target, delta > 0, old -> {
+            int weight = old + delta;
+            if (weight < 0) {
+                throw new IllegalArgumentException("weight must be non-negative");
+            }
+            result[0] = weight;
+            return weight;
+        });
+        return result[0];
+    }
+    
+    /*
+     * Atomically replace the weight w of the edge source -> target (0 if none)
+     * by update(w); a result of 0 removes the edge. Vertices are created first
+     * iff create is true; otherwise a missing source or target means no edge.
+     */
+    private void update(L source, L target, boolean create, IntUnaryOperator update) {
+        vertexLock.readLock().lock();
+        try {
+            if (create) {
+                addVertex(source);
+                addVertex(target);
+            } else if (!outgoing.containsKey(source) || !outgoing.containsKey(target)) {
+                update.applyAsInt(0);
+                return;
+            }
+            ConcurrentHashMap<L, Integer> sources = incoming.get(target);
+            outgoing.get(source).compute(target, (t, old) -> {
+                int weight = update.applyAsInt(old == null ? 0 : old);
+                if (weight == 0) {
+                    sources.remove(source);
+                    return null;
+                }
+                sources.put(source, weight);
+                return weight;
+            });
+        } finally {
+            vertexLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        vertexLock.writeLock().lock();
+        try {
+            Map<L, Integer> targets = outgoing.remove(vertex);
+            if (targets == null) {
+                return false;
+            }
+            Map<L, Integer> sources = incoming.remove(vertex);
+            for (L target : targets.keySet()) {
+                Map<L, Integer> targetSources = incoming.get(target);
+                if (targetSources != null) { // null for a self-loop
+                    targetSources.remove(vertex);
+                }
+            }
+            for (L source : sources.keySet()) {
+                Map<L, Integer> sourceTargets = outgoing.get(source);
+                if (sourceTargets != null) {
+                    sourceTargets.remove(vertex);
+                }
+            }
+            return true;
+        } finally {
+            vertexLock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(outgoing.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? new HashMap<>() : new HashMap<>(sources);
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? new HashMap<>() : new HashMap<>(targets);
+    }
+    
+    @Override
+    public Set<L> vertexView() {
+        return Collections.unmodifiableSet(outgoing.keySet());
+    }
+    
+    @Override
+    public int targetCount(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? 0 : targets.size();
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? 0 : sources.size();
+    }
+    
+    @Override
+    public Map<L, Integer> sourceView(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? Collections.emptyMap() : Collections.unmodifiableMap(sources);
+    }
+    
+    @Override
+    public Map<L, Integer> targetView(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? Collections.emptyMap() : Collections.unmodifiableMap(targets);
+    }
+    
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<L, ConcurrentHashMap<L, Integer>> vertex : outgoing.entrySet()) {
+            for (Map.Entry<L, Integer> edge : vertex.getValue().entrySet()) {
+                output.append("(").append(vertex.getKey()).append(") --[").append(edge.getValue())
+                        .append("]--> (").append(edge.getKey()).append(")\n");
+            }
+        }
+        return output.toString();
+    }
+    
+}
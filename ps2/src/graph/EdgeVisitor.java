@@ -0,0 +1,22 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Callback receiving the edges next to a vertex of a Graph.
+ * 
+ * @param <L> type of vertex labels in the graph
+ */
+@FunctionalInterface
+public interface EdgeVisitor<L> {
+    
+    /**
+     * Receive one edge.
+     * 
+     * @param vertex label of the vertex at the other end of the edge
+     * @param weight the (positive) weight of the edge
+     */
+    public void visit(L vertex, int weight);
+    
+}
@@ -0,0 +1,331 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a Graph in compressed sparse row form.
+ * 
+ * <p>Vertices are interned to dense ids 0..vertexCount()-1. Outgoing edges are
+ * stored in CSR arrays and incoming edges in CSC arrays, each sorted by the id
+ * of the other endpoint, so neighbors can be read by index without allocating:
+ * <pre>
+ *   for (int k = 0; k < g.outDegree(v); k++) { int t = g.target(v, k); int w = g.targetWeight(v, k); }
+ * </pre>
+ * The Graph observers still work (and still copy); the Graph mutators throw
+ * UnsupportedOperationException.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class FrozenGraph<L> implements Graph<L> {
+    
+    private final Object[] labels;
+    private final Map<L, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final long totalWeight;
+    
+    // Abstraction function:
+    //      represents the weighted directed graph with vertices labels[0..n-1]
+    //      and an edge labels[v] -> labels[outTargets[i]] of weight outWeights[i]
+    //      for every outOffsets[v] <= i < outOffsets[v+1].
+    //      inOffsets, inSources and inWeights index the same edges by target.
+    // Representation invariant:
+    //      ids.get(labels[v]) == v for every v, and ids.size() == labels.length == n.
+    //      outOffsets and inOffsets have length n + 1, start at 0, are non-decreasing
+    //        and end at the edge count E; the other arrays have length E.
+    //      Each row of outTargets and inSources is strictly increasing.
+    //      All weights are positive, and totalWeight is their sum.
+    // Safety from rep exposure:
+    //      All fields are private and final, and no array is ever returned;
+    //      observers return copies, primitives or an unmodifiable view of ids' key set.
+    // Thread safety:
+    //      Immutable, so safe to share between threads.
+    
+    /**
+     * Make a snapshot of graph.
+     * 
+     * @param graph graph to copy; not modified, and later changes to it do not
+     *              affect the snapshot
+     */
+    public FrozenGraph(Graph<L> graph) {
+        List<L> vertices = new ArrayList<>(graph.vertices());
+        int n = vertices.size();
+        labels = vertices.toArray();
+        ids = new HashMap<>();
+        for (int v = 0; v < n; v++) {
+            ids.put(vertices.get(v), v);
+        }
+        
+        // rows of (target id, weight) pairs, sorted by target id
+        long[][] rows = new long[n][];
+        int edges = 0;
+        for (int v = 0; v < n; v++) {
+            Map<L, Integer> targets = graph.targets(vertices.get(v));
+            long[] row = new long[targets.size()];
+            int k = 0;
+            for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                row[k++] = ((long) ids.get(edge.getKey()) << 32) | edge.getValue();
+            }
+            Arrays.sort(row);
+            rows[v] = row;
+            edges += row.length;
+        }
+        
+        outOffsets = new int[n + 1];
+        outTargets = new int[edges];
+        outWeights = new int[edges];
+        int[] inDegrees = new int[n];
+        long total = 0;
+        for (int v = 0, i = 0; v < n; v++) {
+            for (long edge : rows[v]) {
+                outTargets[i] = (int) (edge >>> 32);
+                outWeights[i] = (int) edge;
+                total += outWeights[i];
+                inDegrees[outTargets[i]]++;
+                i++;
+            }
+            outOffsets[v + 1] = i;
+        }
+        totalWeight = total;
+        
+        // counting sort by target; scanning sources in id order keeps each column sorted
+        inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] = inOffsets[v] + inDegrees[v];
+        }
+        inSources = new int[edges];
+        inWeights = new int[edges];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                int slot = next[outTargets[i]]++;
+                inSources[slot] = v;
+                inWeights[slot] = outWeights[i];
+            }
+        }
+        checkRep();
+    }
+    
+    private void checkRep() {
+        if (!RepChecks.EXPENSIVE) {
+            return;
+        }
+        int n = labels.length;
+        assert ids.size() == n;
+        assert outOffsets.length == n + 1 && inOffsets.length == n + 1;
+        assert outOffsets[n] == outTargets.length && inOffsets[n] == inSources.length;
+        for (int v = 0; v < n; v++) {
+            assert ids.get(label(v)) == v;
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                assert outWeights[i] > 0;
+                assert i == outOffsets[v] || outTargets[i - 1] < outTargets[i];
+            }
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                assert i == inOffsets[v] || inSources[i - 1] < inSources[i];
+            }
+        }
+    }
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return labels.length;
+    }
+    
+    @Override
+    public int edgeCount() {
+        return outTargets.length;
+    }
+    
+    /**
+     * @param vertex a label
+     * @return the id of vertex in this graph, or -1 if it is not a vertex
+     */
+    public int id(L vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return the label of the vertex with that id
+     */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        return (L) labels[id];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return number of edges from that vertex
+     */
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param k requires 0 <= k < outDegree(id)
+     * @return id of the k-th target of the vertex, in increasing id order
+     */
+    public int target(int id, int k) {
+        return outTargets[outOffsets[id] + k];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param k requires 0 <= k < outDegree(id)
+     * @return weight of the edge to the k-th target of the vertex
+     */
+    public int targetWeight(int id, int k) {
+        return outWeights[outOffsets[id] + k];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return number of edges to that vertex
+     */
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param k requires 0 <= k < inDegree(id)
+     * @return id of the k-th source of the vertex, in increasing id order
+     */
+    public int source(int id, int k) {
+        return inSources[inOffsets[id] + k];
+    }
+    
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param k requires 0 <= k < inDegree(id)
+     * @return weight of the edge from the k-th source of the vertex
+     */
+    public int sourceWeight(int id, int k) {
+        return inWeights[inOffsets[id] + k];
+    }
+    
+    /**
+     * @param source id of a vertex, requires 0 <= source < vertexCount()
+     * @param target id of a vertex, requires 0 <= target < vertexCount()
+     * @return weight of the edge from source to target, or 0 if there is none;
+     *         O(log out-degree)
+     */
+    public int weight(int source, int target) {
+        int i = Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target);
+        return i < 0 ? 0 : outWeights[i];
+    }
+    
+    @Override
+    public long totalWeight() {
+        return totalWeight;
+    }
+    
+    @Override
+    public int targetCount(L source) {
+        int v = id(source);
+        return v < 0 ? 0 : outDegree(v);
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        int v = id(target);
+        return v < 0 ? 0 : inDegree(v);
+    }
+    
+    /** Unsupported: a FrozenGraph is immutable. */
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    /** Unsupported: a FrozenGraph is immutable. */
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    /** Unsupported: a FrozenGraph is immutable. */
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(ids.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> result = new HashMap<>();
+        int v = id(target);
+        if (v >= 0) {
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                result.put(label(inSources[i]), inWeights[i]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> result = new HashMap<>();
+        int v = id(source);
+        if (v >= 0) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                result.put(label(outTargets[i]), outWeights[i]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Set<L> vertexView() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+    
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        int v = id(target);
+        if (v >= 0) {
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                visitor.visit(label(inSources[i]), inWeights[i]);
+            }
+        }
+    }
+    
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        int v = id(source);
+        if (v >= 0) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                visitor.visit(label(outTargets[i]), outWeights[i]);
+            }
+        }
+    }
+    
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int v = 0; v < labels.length; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                output.append("(").append(labels[v]).append(") --[").append(outWeights[i])
+                        .append("]--> (").append(labels[outTargets[i]]).append(")\n");
+            }
+        }
+        return output.toString();
+    }
+    
+}
@@ -3,6 +3,9 @@
  */
 package graph;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,7 +29,22 @@ public interface Graph<L> {
      * @return a new empty weighted directed graph
      */
     public static <L> Graph<L> empty() {
-        return new ConcreteEdgesGraph<>();
+        return new AdjacencyMapGraph<>();
+    }
+    
+    /**
+     * Make an immutable, compact snapshot of a graph.
+     * 
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to copy; not modified
+     * @return a graph with the same vertices and edges as graph, which never
+     *         changes and whose mutators throw UnsupportedOperationException
+     */
+    public static <L> FrozenGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof FrozenGraph) {
+            return (FrozenGraph<L>) graph;
+        }
+        return new FrozenGraph<>(graph);
     }
     
     /**
@@ -95,4 +113,181 @@ public interface Graph<L> {
      */
     public Map<L, Integer> targets(L source);
     
+    /**
+     * Add delta to the weight of a directed edge in this graph, treating a
+     * missing edge as weight zero, then set the edge to the result as in set().
+     * Implementations that support concurrent use perform this atomically.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add; requires the resulting weight is non-negative
+     * @return the new weight of the edge, or zero if there is no such edge
+     * @throws IllegalArgumentException if the resulting weight would be negative
+     */
+    public default int addWeight(L source, L target, int delta) {
+        int weight = targetView(source).getOrDefault(target, 0) + delta;
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative");
+        }
+        set(source, target, weight);
+        return weight;
+    }
+    
+    /**
+     * Add, change, or remove many edges, with the same effect as calling
+     * set(source, target, weight) for each edge in order. Implementations may
+     * apply the whole batch in one pass and check their rep only once at the end.
+     * A stream can be passed as {@code stream::iterator}.
+     * 
+     * @param edges edges to apply, in order
+     * @throws IllegalArgumentException if an edge has a negative weight; the
+     *         edges before it have been applied and the rest have not
+     */
+    public default void setAll(Iterable<? extends WeightedEdge<? extends L>> edges) {
+        for (WeightedEdge<? extends L> edge : edges) {
+            if (edge.getWeight() < 0) {
+                throw new IllegalArgumentException("negative weight: " + edge);
+            }
+            set(edge.getSource(), edge.getTarget(), edge.getWeight());
+        }
+    }
+    
+    /*
+     * Aggregate statistics. The default implementations compute them from the
+     * observers below; implementations may maintain them incrementally.
+     */
+    
+    /**
+     * @param source a label
+     * @return number of edges from source (its out-degree), or 0 if it is not a vertex
+     */
+    public default int targetCount(L source) {
+        return targetView(source).size();
+    }
+    
+    /**
+     * @param target a label
+     * @return number of edges to target (its in-degree), or 0 if it is not a vertex
+     */
+    public default int sourceCount(L target) {
+        return sourceView(target).size();
+    }
+    
+    /**
+     * @return number of edges in this graph
+     */
+    public default int edgeCount() {
+        int edges = 0;
+        for (L vertex : vertexView()) {
+            edges += targetCount(vertex);
+        }
+        return edges;
+    }
+    
+    /**
+     * @return sum of the weights of all edges in this graph
+     */
+    public default long totalWeight() {
+        long[] total = { 0 };
+        for (L vertex : vertexView()) {
+            forEachTarget(vertex, (target, weight) -> total[0] += weight);
+        }
+        return total[0];
+    }
+    
+    /**
+     * Get the heaviest edges in this graph.
+     * 
+     * @param k maximum number of edges to return, requires k >= 0
+     * @return the min(k, edgeCount()) edges of greatest weight, heaviest first;
+     *         edges of equal weight are in no particular order
+     */
+    public default List<WeightedEdge<L>> topEdges(int k) {
+        List<WeightedEdge<L>> edges = new ArrayList<>();
+        for (L vertex : vertexView()) {
+            forEachTarget(vertex, (target, weight) -> edges.add(new WeightedEdge<>(vertex, target, weight)));
+        }
+        return WeightIndex.heaviest(edges, k);
+    }
+    
+    /**
+     * Get the heaviest edges from a vertex.
+     * 
+     * @param source a label
+     * @param k maximum number of edges to return, requires k >= 0
+     * @return the min(k, targetCount(source)) edges from source of greatest
+     *         weight, heaviest first; edges of equal weight are in no particular order
+     */
+    public default List<WeightedEdge<L>> topTargets(L source, int k) {
+        List<WeightedEdge<L>> edges = new ArrayList<>();
+        forEachTarget(source, (target, weight) -> edges.add(new WeightedEdge<>(source, target, weight)));
+        return WeightIndex.heaviest(edges, k);
+    }
+    
+    /*
+     * Read-only access without copying. The methods below observe the same
+     * information as vertices(), sources() and targets(), but implementations
+     * may answer with live views or callbacks instead of fresh copies. The
+     * default implementations fall back to the copying observers.
+     */
+    
+    /**
+     * Get all the vertices in this graph, without copying if possible.
+     * 
+     * @return an unmodifiable set of the labels of vertices in this graph; it
+     *         may be a live view, so it must not be used after this graph is
+     *         modified
+     */
+    public default Set<L> vertexView() {
+        return Collections.unmodifiableSet(vertices());
+    }
+    
+    /**
+     * Get the sources of a target vertex, as in sources(), without copying if possible.
+     * 
+     * @param target a label
+     * @return an unmodifiable map equal to sources(target); it may be a live
+     *         view, so it must not be used after this graph is modified
+     */
+    public default Map<L, Integer> sourceView(L target) {
+        return Collections.unmodifiableMap(sources(target));
+    }
+    
+    /**
+     * Get the targets of a source vertex, as in targets(), without copying if possible.
+     * 
+     * @param source a label
+     * @return an unmodifiable map equal to targets(source); it may be a live
+     *         view, so it must not be used after this graph is modified
+     */
+    public default Map<L, Integer> targetView(L source) {
+        return Collections.unmodifiableMap(targets(source));
+    }
+    
+    /**
+     * Visit every edge to a target vertex, in no particular order.
+     * This graph must not be modified during the visit.
+     * 
+     * @param target a label
+     * @param visitor receives the source and weight of each edge to target
+     */
+    public default void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        for (Map.Entry<L, Integer> edge : sourceView(target).entrySet()) {
+            visitor.visit(edge.getKey(), edge.getValue());
+        }
+    }
+    
+    /**
+     * Visit every edge from a source vertex, in no particular order.
+     * This graph must not be modified during the visit.
+     * 
+     * @param source a label
+     * @param visitor receives the target and weight of each edge from source
+     */
+    public default void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        for (Map.Entry<L, Integer> edge : targetView(source).entrySet()) {
+            visitor.visit(edge.getKey(), edge.getValue());
+        }
+    }
+    
 }
@@ -0,0 +1,286 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same workloads against every Graph implementation and reports the
+ * best wall-clock time of each, so the cost of the O(E) and O(V) scans in
+ * ConcreteEdgesGraph and ConcreteVerticesGraph is measured against the indexed
+ * implementations, and slowdowns can be caught against a saved baseline.
+ *
+ * <p>Workloads, each sized by a vertex count V and an out-degree D:
+ * <ul>
+ * <li>insert: set() V*D random edges into an empty graph
+ * <li>update: addWeight() on V*D random existing edges
+ * <li>query: targets() and sources() of V*D random vertices
+ * <li>remove: remove() V/10 random vertices
+ * <li>corpus: addWeight(w1, w2, 1) for each of V*D word bigrams of a corpus
+ *     drawn from a Zipf distribution over V words, as GraphPoet ingests text
+ * </ul>
+ *
+ * <p>Usage: GraphBenchmark [OPTION ...] where options are
+ * <pre>
+ *   --vertices N,N,...   vertex counts to run (default 100,1000)
+ *   --degree N,N,...     out-degrees to run (default 4)
+ *   --impl NAME,...      implementations to run (default all, see IMPLEMENTATIONS)
+ *   --workload NAME,...  workloads to run (default all)
+ *   --runs N             measured runs per case, after as many warm-up runs (default 5)
+ *   --max-seconds S      skip the rest of a case whose first run takes longer (default 10)
+ *   --baseline FILE      compare with a file of earlier output; exit with status 1
+ *                        if any case is slower than baseline * (1 + tolerance)
+ *   --tolerance T        allowed slowdown against the baseline (default 0.25)
+ * </pre>
+ * Output is one tab-separated line per case: workload, implementation, V, D
+ * and the best time in milliseconds; it can be saved and passed back as --baseline.
+ */
+public final class GraphBenchmark {
+
+    /** Implementations by name, each making a new empty graph. */
+    public static final Map<String, Supplier<Graph<Integer>>> IMPLEMENTATIONS;
+    static {
+        Map<String, Supplier<Graph<Integer>>> implementations = new LinkedHashMap<>();
+        implementations.put("ConcreteEdgesGraph", ConcreteEdgesGraph::new);
+        implementations.put("ConcreteVerticesGraph", ConcreteVerticesGraph::new);
+        implementations.put("AdjacencyMapGraph", AdjacencyMapGraph::new);
+        implementations.put("InternedGraph", InternedGraph::new);
+        implementations.put("ConcurrentGraph", ConcurrentGraph::new);
+        IMPLEMENTATIONS = Collections.unmodifiableMap(implementations);
+    }
+
+    private static final List<String> WORKLOADS = Arrays.asList("insert", "update", "query", "remove", "corpus");
+
+    /* A workload prepared for one graph size: setup() is not timed, run() is. */
+    private interface Case {
+        /** @return state for one run, made without timing */
+        Object setup();
+        /** @return a value depending on the work done, so it cannot be optimized away */
+        long run(Object state);
+    }
+
+    private GraphBenchmark() {}
+
+    /**
+     * Run the benchmark.
+     * @param args options as described in the class comment
+     * @throws IOException if the baseline file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("expected an option: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        List<String> implementations = list(
+                options.getOrDefault("impl", String.join(",", IMPLEMENTATIONS.keySet())));
+        List<String> workloads = list(options.getOrDefault("workload", String.join(",", WORKLOADS)));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        double maxSeconds = Double.parseDouble(options.getOrDefault("max-seconds", "10"));
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.25"));
+        Map<String, Double> baseline = options.containsKey("baseline")
+                ? readBaseline(options.get("baseline")) : Collections.<String, Double>emptyMap();
+
+        boolean regressed = false;
+        for (String vertices : list(options.getOrDefault("vertices", "100,1000"))) {
+            for (String degree : list(options.getOrDefault("degree", "4"))) {
+                for (String workload : workloads) {
+                    for (String implementation : implementations) {
+                        Supplier<Graph<Integer>> factory = IMPLEMENTATIONS.get(implementation);
+                        if (factory == null) {
+                            throw new IllegalArgumentException("unknown implementation: " + implementation);
+                        }
+                        Case benchmark = prepare(workload, factory,
+                                Integer.parseInt(vertices), Integer.parseInt(degree));
+                        double millis = bestMillis(benchmark, runs, maxSeconds);
+                        String key = workload + "\t" + implementation + "\t" + vertices + "\t" + degree;
+                        StringBuilder line = new StringBuilder(key).append('\t');
+                        line.append(Double.isNaN(millis)
+                                ? "skipped" : String.format(Locale.ROOT, "%.3f", millis));
+                        Double before = baseline.get(key);
+                        if (before != null && !Double.isNaN(millis)) {
+                            double ratio = millis / before;
+                            line.append(String.format(Locale.ROOT, "\t%.2fx baseline", ratio));
+                            if (ratio > 1 + tolerance) {
+                                line.append("\tREGRESSION");
+                                regressed = true;
+                            }
+                        }
+                        System.out.println(line);
+                    }
+                }
+            }
+        }
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    // a workload over graphs made by factory with V vertices of out-degree D
+    private static Case prepare(String workload, Supplier<Graph<Integer>> factory, int vertices, int degree) {
+        int operations = vertices * degree;
+        Random random = new Random(6005);
+        int[] sources = new int[operations];
+        int[] targets = new int[operations];
+        for (int i = 0; i < operations; i++) {
+            sources[i] = random.nextInt(vertices);
+            targets[i] = random.nextInt(vertices);
+        }
+        switch (workload) {
+        case "insert":
+            return new Case() {
+                @Override public Object setup() {
+                    return factory.get();
+                }
+                @Override public long run(Object state) {
+                    return fill(cast(state), sources, targets);
+                }
+            };
+        case "update":
+            return new Case() {
+                @Override public Object setup() {
+                    Graph<Integer> graph = factory.get();
+                    fill(graph, sources, targets);
+                    return graph;
+                }
+                @Override public long run(Object state) {
+                    Graph<Integer> graph = cast(state);
+                    long sum = 0;
+                    for (int i = operations - 1; i >= 0; i--) {
+                        sum += graph.addWeight(sources[i], targets[i], 1);
+                    }
+                    return sum;
+                }
+            };
+        case "query":
+            return new Case() {
+                @Override public Object setup() {
+                    Graph<Integer> graph = factory.get();
+                    fill(graph, sources, targets);
+                    return graph;
+                }
+                @Override public long run(Object state) {
+                    Graph<Integer> graph = cast(state);
+                    long sum = 0;
+                    for (int i = 0; i < operations; i++) {
+                        sum += graph.targets(sources[i]).size() + graph.sources(targets[i]).size();
+                    }
+                    return sum;
+                }
+            };
+        case "remove":
+            return new Case() {
+                @Override public Object setup() {
+                    Graph<Integer> graph = factory.get();
+                    fill(graph, sources, targets);
+                    return graph;
+                }
+                @Override public long run(Object state) {
+                    Graph<Integer> graph = cast(state);
+                    long removed = 0;
+                    for (int i = 0; i < vertices / 10; i++) {
+                        removed += graph.remove(sources[i]) ? 1 : 0;
+                    }
+                    return removed;
+                }
+            };
+        case "corpus":
+            int[] words = zipfCorpus(vertices, operations + 1, random);
+            return new Case() {
+                @Override public Object setup() {
+                    return factory.get();
+                }
+                @Override public long run(Object state) {
+                    Graph<Integer> graph = cast(state);
+                    long sum = 0;
+                    for (int i = 0; i + 1 < words.length; i++) {
+                        sum += graph.addWeight(words[i], words[i + 1], 1);
+                    }
+                    return sum;
+                }
+            };
+        default:
+            throw new IllegalArgumentException("unknown workload: " + workload);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Graph<Integer> cast(Object state) {
+        return (Graph<Integer>) state;
+    }
+
+    // set an edge of weight 1 + i % 7 for each i, returning the sum of previous weights
+    private static long fill(Graph<Integer> graph, int[] sources, int[] targets) {
+        long sum = 0;
+        for (int i = 0; i < sources.length; i++) {
+            sum += graph.set(sources[i], targets[i], 1 + i % 7);
+        }
+        return sum;
+    }
+
+    // length words drawn from 0..vocabulary-1, word w with probability proportional to 1/(w+1)
+    private static int[] zipfCorpus(int vocabulary, int length, Random random) {
+        double[] cumulative = new double[vocabulary];
+        double total = 0;
+        for (int w = 0; w < vocabulary; w++) {
+            total += 1.0 / (w + 1);
+            cumulative[w] = total;
+        }
+        int[] words = new int[length];
+        for (int i = 0; i < length; i++) {
+            int w = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            words[i] = Math.min(vocabulary - 1, w < 0 ? -w - 1 : w);
+        }
+        return words;
+    }
+
+    /*
+     * Best time of runs measured runs after runs warm-up runs, in milliseconds,
+     * or NaN if the first run takes longer than maxSeconds.
+     */
+    private static double bestMillis(Case benchmark, int runs, double maxSeconds) {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int i = 0; i < 2 * runs; i++) {
+            Object state = benchmark.setup();
+            long start = System.nanoTime();
+            checksum += benchmark.run(state);
+            long elapsed = System.nanoTime() - start;
+            if (i == 0 && elapsed > maxSeconds * 1e9) {
+                return Double.NaN;
+            }
+            if (i >= runs) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        if (checksum == Long.MIN_VALUE) {
+            System.out.print(""); // keep checksum live
+        }
+        return best / 1e6;
+    }
+
+    private static List<String> list(String commaSeparated) {
+        return Arrays.asList(commaSeparated.split(","));
+    }
+
+    // map from "workload TAB implementation TAB V TAB D" to milliseconds
+    private static Map<String, Double> readBaseline(String file) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(Paths.get(file))) {
+            String[] fields = line.split("\t");
+            if (fields.length >= 5 && !fields[4].equals("skipped")) {
+                baseline.put(fields[0] + "\t" + fields[1] + "\t" + fields[2] + "\t" + fields[3],
+                        Double.parseDouble(fields[4]));
+            }
+        }
+        return baseline;
+    }
+
+}
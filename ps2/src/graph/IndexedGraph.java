@@ -0,0 +1,96 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A Graph whose vertices also have int ids, so that callers on a hot path can
+ * translate labels once and then walk edges without hashing or boxing labels.
+ *
+ * <p>Every vertex has an id, distinct from the ids of other vertices. A label
+ * that is not a vertex has id -1, or, if the implementation keeps ids of
+ * removed labels, an id with no edges.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface IndexedGraph<L> extends Graph<L> {
+
+    /**
+     * @param vertex a label
+     * @return the id of vertex, or -1 if it has none
+     */
+    public int id(L vertex);
+
+    /**
+     * @param id an id returned by id()
+     * @return the label with that id
+     */
+    public L label(int id);
+
+    /**
+     * @param id an id returned by id()
+     * @return number of edges from that vertex
+     */
+    public int outDegree(int id);
+
+    /**
+     * @param id an id returned by id()
+     * @return number of edges to that vertex
+     */
+    public int inDegree(int id);
+
+    /**
+     * @param source an id returned by id()
+     * @param target an id returned by id()
+     * @return the weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target);
+
+    /**
+     * Visit every edge from a vertex. This graph must not be modified during the visit.
+     *
+     * @param id an id returned by id()
+     * @param action receives the target id and weight of each edge
+     */
+    public void forEachTarget(int id, IntEdgeConsumer action);
+
+    /**
+     * Visit every edge to a vertex. This graph must not be modified during the visit.
+     *
+     * @param id an id returned by id()
+     * @param action receives the source id and weight of each edge
+     */
+    public void forEachSource(int id, IntEdgeConsumer action);
+
+    /**
+     * Visit every two-edge path source -> middle -> target, in no particular
+     * order. This graph must not be modified during the visit.
+     *
+     * <p>The default implementation scans the smaller of the edges from source
+     * and the edges to target, looking up the other edge of each path with
+     * weight().
+     *
+     * @param source an id returned by id()
+     * @param target an id returned by id()
+     * @param action receives the id of each middle vertex and the sum of the
+     *               weights of the two edges through it
+     */
+    public default void forEachTwoEdgePath(int source, int target, IntEdgeConsumer action) {
+        if (outDegree(source) <= inDegree(target)) {
+            forEachTarget(source, (middle, weight) -> {
+                int second = weight(middle, target);
+                if (second > 0) {
+                    action.accept(middle, weight + second);
+                }
+            });
+        } else {
+            forEachSource(target, (middle, weight) -> {
+                int first = weight(source, middle);
+                if (first > 0) {
+                    action.accept(middle, first + weight);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of IntGraph with primitive open-addressing hash maps.
+ * 
+ * <p>Each vertex owns a slot holding a map of its outgoing edges and a map of
+ * its incoming edges (neighbor -> weight), so set() is O(1), visiting neighbors
+ * is O(degree) and remove() is O(in-degree + out-degree), all without boxing.
+ */
+public class IntAdjacencyGraph implements IntGraph {
+    
+    private static final int INITIAL_SLOTS = 8;
+    
+    private final IntIntHashMap slots = new IntIntHashMap();
+    private IntIntHashMap[] outgoing = new IntIntHashMap[INITIAL_SLOTS];
+    private IntIntHashMap[] incoming = new IntIntHashMap[INITIAL_SLOTS];
+    private int[] freeSlots = new int[INITIAL_SLOTS];
+    private int freeCount = 0;
+    private int nextSlot = 0;
+    
+    // Abstraction function:
+    //      represents the weighted directed graph whose vertices are the keys of
+    //      slots, with an edge from s to t of weight w iff
+    //      outgoing[slots.get(s)] maps t to w.
+    // Representation invariant:
+    //      slots maps distinct vertices to distinct slots in [0, nextSlot);
+    //      outgoing[i] and incoming[i] are non-null iff i is a value of slots;
+    //      freeSlots[0..freeCount) are exactly the slots below nextSlot not in use.
+    //      outgoing[slot(s)] maps t to w iff incoming[slot(t)] maps s to w,
+    //        and every such t and s is a vertex.
+    //      Every weight is positive.
+    // Safety from rep exposure:
+    //      All fields are private; arrays and maps are never returned,
+    //      vertices() returns a new array.
+    
+    // constructor
+    public IntAdjacencyGraph() {}
+    
+    // checkRep for the edge source -> target that a mutation touched, O(1); the
+    // edges of both vertices are also checked, in O(degree), only when
+    // RepChecks.EXPENSIVE
+    private void checkRep(int source, int target) {
+        int sourceSlot = slots.get(source, -1);
+        int targetSlot = slots.get(target, -1);
+        if (sourceSlot >= 0 && targetSlot >= 0) {
+            int weight = outgoing[sourceSlot].get(target, 0);
+            assert weight >= 0;
+            assert incoming[targetSlot].get(source, 0) == weight;
+        }
+        if (RepChecks.EXPENSIVE) {
+            checkVertex(source);
+            checkVertex(target);
+        }
+    }
+    
+    // checkRep for the edges of one vertex, O(degree)
+    private void checkVertex(int vertex) {
+        int slot = slots.get(vertex, -1);
+        if (slot < 0) {
+            return;
+        }
+        assert outgoing[slot] != null && incoming[slot] != null;
+        outgoing[slot].forEach((target, weight) -> {
+            assert weight > 0;
+            assert incoming[slots.get(target, -1)].get(vertex, 0) == weight;
+        });
+        incoming[slot].forEach((source, weight) -> {
+            assert outgoing[slots.get(source, -1)].get(vertex, 0) == weight;
+        });
+    }
+    
+    @Override
+    public boolean add(int vertex) {
+        if (slots.containsKey(vertex)) {
+            return false;
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (nextSlot == outgoing.length) {
+                outgoing = Arrays.copyOf(outgoing, nextSlot * 2);
+                incoming = Arrays.copyOf(incoming, nextSlot * 2);
+            }
+            slot = nextSlot++;
+        }
+        slots.put(vertex, slot);
+        outgoing[slot] = new IntIntHashMap();
+        incoming[slot] = new IntIntHashMap();
+        return true;
+    }
+    
+    @Override
+    public int set(int source, int target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative");
+        }
+        int previous;
+        if (weight > 0) {
+            add(source);
+            add(target);
+            IntIntHashMap targets = outgoing[slots.get(source, -1)];
+            previous = targets.get(target, 0);
+            targets.put(target, weight);
+            incoming[slots.get(target, -1)].put(source, weight);
+        } else {
+            int slot = slots.get(source, -1);
+            if (slot < 0) {
+                return 0;
+            }
+            previous = outgoing[slot].get(target, 0);
+            if (previous == 0) {
+                return 0;
+            }
+            outgoing[slot].remove(target);
+            incoming[slots.get(target, -1)].remove(source);
+        }
+        checkRep(source, target);
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(int vertex) {
+        int slot = slots.get(vertex, -1);
+        if (slot < 0) {
+            return false;
+        }
+        outgoing[slot].forEach((target, weight) -> {
+            if (target != vertex) {
+                incoming[slots.get(target, -1)].remove(vertex);
+            }
+        });
+        incoming[slot].forEach((source, weight) -> {
+            if (source != vertex) {
+                outgoing[slots.get(source, -1)].remove(vertex);
+            }
+        });
+        outgoing[slot] = null;
+        incoming[slot] = null;
+        slots.remove(vertex);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+    
+    @Override
+    public boolean contains(int vertex) {
+        return slots.containsKey(vertex);
+    }
+    
+    @Override
+    public int vertexCount() {
+        return slots.size();
+    }
+    
+    @Override
+    public int[] vertices() {
+        return slots.keys();
+    }
+    
+    @Override
+    public int weight(int source, int target) {
+        int slot = slots.get(source, -1);
+        return slot < 0 ? 0 : outgoing[slot].get(target, 0);
+    }
+    
+    @Override
+    public int outDegree(int vertex) {
+        int slot = slots.get(vertex, -1);
+        return slot < 0 ? 0 : outgoing[slot].size();
+    }
+    
+    @Override
+    public int inDegree(int vertex) {
+        int slot = slots.get(vertex, -1);
+        return slot < 0 ? 0 : incoming[slot].size();
+    }
+    
+    @Override
+    public void forEachTarget(int source, IntEdgeConsumer action) {
+        int slot = slots.get(source, -1);
+        if (slot >= 0) {
+            outgoing[slot].forEach(action);
+        }
+    }
+    
+    @Override
+    public void forEachSource(int target, IntEdgeConsumer action) {
+        int slot = slots.get(target, -1);
+        if (slot >= 0) {
+            incoming[slot].forEach(action);
+        }
+    }
+    
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int source : vertices()) {
+            forEachTarget(source, (target, weight) -> output.append("(").append(source)
+                    .append(") --[").append(weight).append("]--> (").append(target).append(")\n"));
+        }
+        return output.toString();
+    }
+    
+}
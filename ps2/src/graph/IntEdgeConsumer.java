@@ -0,0 +1,20 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Callback receiving the edges next to a vertex of an IntGraph, without boxing.
+ */
+@FunctionalInterface
+public interface IntEdgeConsumer {
+    
+    /**
+     * Receive one edge.
+     * 
+     * @param vertex the vertex at the other end of the edge
+     * @param weight the (positive) weight of the edge
+     */
+    public void accept(int vertex, int weight);
+    
+}
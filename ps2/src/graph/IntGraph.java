@@ -0,0 +1,111 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A mutable weighted directed graph whose vertices are ints.
+ * Edges are directed and have a positive weight of type {@code int}.
+ * 
+ * <p>This is the primitive counterpart of Graph&lt;Integer&gt;: the operations
+ * have the same specifications as in Graph, but vertices and weights are never
+ * boxed, and neighbors are visited with a callback instead of being copied
+ * into a map. Use InternedGraph to get a Graph&lt;L&gt; backed by an IntGraph.
+ */
+public interface IntGraph {
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @return a new empty weighted directed graph
+     */
+    public static IntGraph empty() {
+        return new IntAdjacencyGraph();
+    }
+    
+    /**
+     * Add a vertex to this graph.
+     * 
+     * @param vertex the new vertex
+     * @return true if this graph did not already include the vertex;
+     *         otherwise false (and this graph is not modified)
+     */
+    public boolean add(int vertex);
+    
+    /**
+     * Add, change, or remove a weighted directed edge in this graph, as in
+     * {@link Graph#set(Object, Object, int)}.
+     * 
+     * @param source the source vertex
+     * @param target the target vertex
+     * @param weight non-negative weight of the edge
+     * @return the previous weight of the edge, or zero if there was no such edge
+     */
+    public int set(int source, int target, int weight);
+    
+    /**
+     * Remove a vertex from this graph; any edges to or from the vertex are
+     * also removed.
+     * 
+     * @param vertex the vertex to remove
+     * @return true if this graph included the vertex; otherwise false (and
+     *         this graph is not modified)
+     */
+    public boolean remove(int vertex);
+    
+    /**
+     * @param vertex an int
+     * @return true iff vertex is a vertex of this graph
+     */
+    public boolean contains(int vertex);
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount();
+    
+    /**
+     * Get all the vertices in this graph.
+     * 
+     * @return a new array of the vertices in this graph, in no particular order
+     */
+    public int[] vertices();
+    
+    /**
+     * @param source an int
+     * @param target an int
+     * @return the weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target);
+    
+    /**
+     * @param vertex an int
+     * @return number of edges from vertex, or 0 if it is not a vertex
+     */
+    public int outDegree(int vertex);
+    
+    /**
+     * @param vertex an int
+     * @return number of edges to vertex, or 0 if it is not a vertex
+     */
+    public int inDegree(int vertex);
+    
+    /**
+     * Visit every edge from a source vertex, in no particular order.
+     * The graph must not be modified during the visit.
+     * 
+     * @param source an int
+     * @param action receives the target and weight of each edge from source
+     */
+    public void forEachTarget(int source, IntEdgeConsumer action);
+    
+    /**
+     * Visit every edge to a target vertex, in no particular order.
+     * The graph must not be modified during the visit.
+     * 
+     * @param target an int
+     * @param action receives the source and weight of each edge to target
+     */
+    public void forEachSource(int target, IntEdgeConsumer action);
+    
+}
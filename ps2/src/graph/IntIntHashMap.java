@@ -0,0 +1,194 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A mutable map from int to int using open addressing with linear probing,
+ * so keys and values are never boxed.
+ * This class is internal to the rep of IntAdjacencyGraph.
+ */
+class IntIntHashMap {
+    
+    private static final int MIN_CAPACITY = 4;
+    
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+    
+    // Abstraction function:
+    //      represents the map { keys[i] -> values[i] | used[i] }.
+    // Representation invariant:
+    //      keys, values and used have the same power-of-two length;
+    //      size == number of used slots, and 2 * size <= length;
+    //      keys of used slots are distinct, and every used slot is reachable
+    //        from the home slot of its key without crossing an unused slot.
+    // Safety from rep exposure:
+    //      All fields are private; arrays are never returned.
+    
+    /** Make an empty map. */
+    IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Make an empty map with room for expected keys before it grows.
+     * @param expected expected number of keys, requires >= 0
+     */
+    IntIntHashMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expected) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+    
+    /** @return number of keys in this map */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @param key a key
+     * @return true iff key is in this map
+     */
+    boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+    
+    /**
+     * @param key a key
+     * @param missing value to return if key is not in this map
+     * @return the value for key, or missing
+     */
+    int get(int key, int missing) {
+        int slot = find(key);
+        return slot < 0 ? missing : values[slot];
+    }
+    
+    /**
+     * Map key to value, replacing any previous value.
+     * @param key a key
+     * @param value its new value
+     */
+    void put(int key, int value) {
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (2 * size > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+    
+    /**
+     * Remove key from this map.
+     * @param key a key
+     * @return true iff key was in this map
+     */
+    boolean remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        // backward-shift deletion keeps every probe sequence unbroken
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!used[next]) {
+                break;
+            }
+            int home = home(keys[next], mask);
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+    
+    /** Remove every key. */
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+    
+    /**
+     * Call action on every key and value, in no particular order.
+     * Requires action does not modify this map.
+     * @param action receives each key and its value
+     */
+    void forEach(IntEdgeConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+    
+    /** @return a new array of the keys in this map, in no particular order */
+    int[] keys() {
+        int[] result = new int[size];
+        int k = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                result[k++] = keys[slot];
+            }
+        }
+        return result;
+    }
+    
+    // slot holding key, or -1
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private static int home(int key, int mask) {
+        int h = key * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+    
+}
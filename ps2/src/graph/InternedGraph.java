@@ -0,0 +1,207 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * An implementation of Graph that stores its edges in an IntGraph, mapping
+ * labels to int vertices with an Interner.
+ * 
+ * <p>Labels are hashed once on the way in; all adjacency and weight storage is
+ * primitive. Callers on a hot path can skip the boxed Graph observers by
+ * translating labels with id() and label() and walking edges by id.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class InternedGraph<L> implements IndexedGraph<L> {
+    
+    private final Interner<L> interner;
+    private final IntGraph graph;
+    
+    // Abstraction function:
+    //      represents the graph with vertex interner.label(v) for every vertex v of graph,
+    //      and an edge interner.label(s) -> interner.label(t) of weight w for every
+    //      edge s -> t of weight w in graph.
+    // Representation invariant:
+    //      every vertex of graph is in [0, interner.size()).
+    // Safety from rep exposure:
+    //      All fields are private and final. The interner and int graph are only
+    //      shared with a caller who passed them to the constructor, as documented.
+    
+    /** Make an empty graph. */
+    public InternedGraph() {
+        this(new Interner<>(), IntGraph.empty());
+    }
+    
+    /**
+     * Make a Graph view of an IntGraph. The view and the arguments share state:
+     * changes through one are visible through the others.
+     * 
+     * @param interner maps labels to the int vertices of graph
+     * @param graph graph whose vertices are all ids of interner
+     */
+    public InternedGraph(Interner<L> interner, IntGraph graph) {
+        this.interner = interner;
+        this.graph = graph;
+    }
+    
+    /**
+     * @param vertex a label
+     * @return the int vertex of label in the underlying IntGraph, or -1 if the
+     *         label was never added
+     */
+    @Override
+    public int id(L vertex) {
+        return interner.id(vertex);
+    }
+    
+    /**
+     * @param id an int vertex of the underlying IntGraph
+     * @return its label
+     */
+    @Override
+    public L label(int id) {
+        return interner.label(id);
+    }
+    
+    @Override
+    public int outDegree(int id) {
+        return graph.outDegree(id);
+    }
+    
+    @Override
+    public int inDegree(int id) {
+        return graph.inDegree(id);
+    }
+    
+    @Override
+    public int weight(int source, int target) {
+        return graph.weight(source, target);
+    }
+    
+    @Override
+    public void forEachTarget(int id, IntEdgeConsumer action) {
+        graph.forEachTarget(id, action);
+    }
+    
+    @Override
+    public void forEachSource(int id, IntEdgeConsumer action) {
+        graph.forEachSource(id, action);
+    }
+    
+    @Override
+    public int targetCount(L source) {
+        int id = interner.id(source);
+        return id < 0 ? 0 : graph.outDegree(id);
+    }
+    
+    @Override
+    public int sourceCount(L target) {
+        int id = interner.id(target);
+        return id < 0 ? 0 : graph.inDegree(id);
+    }
+    
+    @Override
+    public int edgeCount() {
+        int edges = 0;
+        for (int id : graph.vertices()) {
+            edges += graph.outDegree(id);
+        }
+        return edges;
+    }
+    
+    @Override
+    public long totalWeight() {
+        long[] total = { 0 };
+        for (int id : graph.vertices()) {
+            graph.forEachTarget(id, (target, weight) -> total[0] += weight);
+        }
+        return total[0];
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        return graph.add(interner.intern(vertex));
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative");
+        }
+        if (weight > 0) {
+            return graph.set(interner.intern(source), interner.intern(target), weight);
+        }
+        int s = interner.id(source);
+        int t = interner.id(target);
+        if (s < 0 || t < 0) {
+            return 0;
+        }
+        return graph.set(s, t, weight);
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        int id = interner.id(vertex);
+        return id >= 0 && graph.remove(id);
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        for (int id : graph.vertices()) {
+            vertices.add(interner.label(id));
+        }
+        return vertices;
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        int id = interner.id(target);
+        if (id >= 0) {
+            graph.forEachSource(id, (source, weight) -> sources.put(interner.label(source), weight));
+        }
+        return sources;
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        int id = interner.id(source);
+        if (id >= 0) {
+            graph.forEachTarget(id, (target, weight) -> targets.put(interner.label(target), weight));
+        }
+        return targets;
+    }
+    
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        int id = interner.id(target);
+        if (id >= 0) {
+            graph.forEachSource(id, (source, weight) -> visitor.visit(interner.label(source), weight));
+        }
+    }
+    
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        int id = interner.id(source);
+        if (id >= 0) {
+            graph.forEachTarget(id, (target, weight) -> visitor.visit(interner.label(target), weight));
+        }
+    }
+    
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int source : graph.vertices()) {
+            graph.forEachTarget(source, (target, weight) -> output.append("(").append(interner.label(source))
+                    .append(") --[").append(weight).append("]--> (").append(interner.label(target)).append(")\n"));
+        }
+        return output.toString();
+    }
+    
+}
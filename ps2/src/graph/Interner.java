@@ -0,0 +1,79 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mutable one-to-one mapping from labels to dense int ids 0, 1, 2, ...,
+ * assigned in the order labels are first interned.
+ * Ids are never reused or released.
+ * 
+ * @param <L> type of labels, must be immutable
+ */
+public class Interner<L> {
+    
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    
+    // Abstraction function:
+    //      represents the mapping labels.get(i) <-> i for 0 <= i < labels.size().
+    // Representation invariant:
+    //      ids.size() == labels.size(), and ids.get(labels.get(i)) == i for all i.
+    // Safety from rep exposure:
+    //      All fields are private and final and never returned; labels are immutable.
+    
+    // constructor
+    public Interner() {}
+    
+    private void checkRep() {
+        assert ids.size() == labels.size();
+    }
+    
+    /**
+     * Get the id of a label, assigning the next id if it has none yet.
+     * 
+     * @param label a label
+     * @return the id of label
+     */
+    public int intern(L label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+        int next = labels.size();
+        ids.put(label, next);
+        labels.add(label);
+        checkRep();
+        return next;
+    }
+    
+    /**
+     * @param label a label
+     * @return the id of label, or -1 if it was never interned
+     */
+    public int id(L label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * @param id an id, requires 0 <= id < size()
+     * @return the label with that id
+     */
+    public L label(int id) {
+        return labels.get(id);
+    }
+    
+    /**
+     * @return number of labels interned so far
+     */
+    public int size() {
+        return labels.size();
+    }
+    
+}
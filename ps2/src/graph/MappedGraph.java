@@ -0,0 +1,551 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * An immutable Graph of strings read directly from a memory-mapped graph file.
+ *
+ * <p>write() saves a graph in a compact binary format and open() maps a saved
+ * file without decoding it, so opening costs O(1) whatever the size of the
+ * graph; labels and edges are decoded from the mapped bytes on each query.
+ * Vertices have dense ids 0..vertexCount()-1 as in FrozenGraph.
+ *
+ * <p>File format (big-endian ints; section positions are absolute):
+ * <pre>
+ *   header   MAGIC, VERSION, vertex count n, edge count E, hash table size H,
+ *            positions of the seven sections below, file length
+ *   labels   int[n+1] offsets of each label in the label bytes
+ *            UTF-8 bytes of all labels, in id order
+ *   index    int[H] open-addressing hash table from label to id + 1 (0 = empty)
+ *   out      int[n+1] offsets of each row in the out rows
+ *            rows of varints: degree, then (target id gap, weight) per edge
+ *   in       same as out for the incoming edges, with source ids
+ * </pre>
+ * Rows list neighbors in increasing id order, each id stored as the gap from
+ * the previous one (from 0 for the first).
+ * The Graph mutators throw UnsupportedOperationException.
+ */
+public final class MappedGraph implements IndexedGraph<String> {
+
+    private static final int MAGIC = 0x47524146; // "GRAF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 13 * 4;
+
+    private final ByteBuffer bytes;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final int tableMask;
+    private final int labelOffsetsPos;
+    private final int labelBytesPos;
+    private final int tablePos;
+    private final int outOffsetsPos;
+    private final int outRowsPos;
+    private final int inOffsetsPos;
+    private final int inRowsPos;
+
+    // Abstraction function:
+    //      represents the graph encoded in bytes as described in the class comment:
+    //      vertex v is labelled by the UTF-8 string at labelBytesPos + its label offsets,
+    //      with edges to the targets decoded from its out row.
+    // Representation invariant:
+    //      bytes holds a well-formed graph file; every *Pos field is the position of
+    //      its section and all sections lie within bytes.limit().
+    //      tableMask + 1 is a power of two greater than vertexCount.
+    // Safety from rep exposure:
+    //      All fields are private and final; bytes is read-only, never returned, and
+    //      only read with absolute gets or through duplicates.
+    // Thread safety:
+    //      Immutable, and reads never move the position of bytes, so safe to share
+    //      between threads.
+
+    /**
+     * Save a graph to a file in the format read by open(), replacing the file if
+     * it exists.
+     *
+     * @param graph graph to save; not modified
+     * @param path file to write
+     * @throws IOException if the file cannot be written, or the graph is too
+     *         large to map (2 GB or more when encoded)
+     */
+    public static void write(Graph<String> graph, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(graph, out);
+        }
+    }
+
+    /**
+     * Write a graph in the format read by open().
+     *
+     * @param graph graph to save; not modified
+     * @param out stream to write to; not closed
+     * @throws IOException if out cannot be written, or the graph is too large
+     */
+    public static void write(Graph<String> graph, OutputStream out) throws IOException {
+        FrozenGraph<String> frozen = Graph.freeze(graph);
+        int n = frozen.vertexCount();
+
+        ByteArrayOutputStream labelBytes = new ByteArrayOutputStream();
+        int[] labelOffsets = new int[n + 1];
+        byte[][] encoded = new byte[n][];
+        for (int v = 0; v < n; v++) {
+            encoded[v] = frozen.label(v).getBytes(StandardCharsets.UTF_8);
+            labelBytes.write(encoded[v], 0, encoded[v].length);
+            labelOffsets[v + 1] = labelBytes.size();
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(1, n * 2 - 1)) << 1;
+        int[] table = new int[tableSize];
+        for (int v = 0; v < n; v++) {
+            int slot = hash(encoded[v]) & (tableSize - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = v + 1;
+        }
+
+        ByteArrayOutputStream outRows = new ByteArrayOutputStream();
+        ByteArrayOutputStream inRows = new ByteArrayOutputStream();
+        int[] outOffsets = new int[n + 1];
+        int[] inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            writeVarint(outRows, frozen.outDegree(v));
+            for (int k = 0, previous = 0; k < frozen.outDegree(v); k++) {
+                writeVarint(outRows, frozen.target(v, k) - previous);
+                writeVarint(outRows, frozen.targetWeight(v, k));
+                previous = frozen.target(v, k);
+            }
+            outOffsets[v + 1] = outRows.size();
+            writeVarint(inRows, frozen.inDegree(v));
+            for (int k = 0, previous = 0; k < frozen.inDegree(v); k++) {
+                writeVarint(inRows, frozen.source(v, k) - previous);
+                writeVarint(inRows, frozen.sourceWeight(v, k));
+                previous = frozen.source(v, k);
+            }
+            inOffsets[v + 1] = inRows.size();
+        }
+
+        long labelOffsetsPos = HEADER_BYTES;
+        long labelBytesPos = labelOffsetsPos + 4L * (n + 1);
+        long tablePos = labelBytesPos + labelBytes.size();
+        long outOffsetsPos = tablePos + 4L * tableSize;
+        long outRowsPos = outOffsetsPos + 4L * (n + 1);
+        long inOffsetsPos = outRowsPos + outRows.size();
+        long inRowsPos = inOffsetsPos + 4L * (n + 1);
+        long length = inRowsPos + inRows.size();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("graph too large for one mapped file: " + length + " bytes");
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        for (long field : new long[] { MAGIC, VERSION, n, frozen.edgeCount(), tableSize,
+                labelOffsetsPos, labelBytesPos, tablePos, outOffsetsPos, outRowsPos,
+                inOffsetsPos, inRowsPos, length }) {
+            data.writeInt((int) field);
+        }
+        writeInts(data, labelOffsets);
+        labelBytes.writeTo(data);
+        writeInts(data, table);
+        writeInts(data, outOffsets);
+        outRows.writeTo(data);
+        writeInts(data, inOffsets);
+        inRows.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Map a file saved by write().
+     * The file stays mapped until this graph is garbage-collected; it must not
+     * be modified in the meantime.
+     *
+     * @param path file to read
+     * @return a graph with the vertices and edges that were saved
+     * @throws IOException if the file cannot be read or is not a graph file
+     */
+    public static MappedGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("not a graph file: too large");
+            }
+            return new MappedGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Read a graph from the bytes between position 0 and the limit of buffer,
+     * as written by write(). The bytes are used directly, not copied.
+     *
+     * @param buffer bytes of a graph file; must not be modified afterwards
+     * @throws IOException if the bytes are not a graph file
+     */
+    public MappedGraph(ByteBuffer buffer) throws IOException {
+        bytes = buffer.asReadOnlyBuffer();
+        if (bytes.limit() < HEADER_BYTES || bytes.getInt(0) != MAGIC) {
+            throw new IOException("not a graph file");
+        }
+        if (bytes.getInt(4) != VERSION) {
+            throw new IOException("unsupported graph file version " + bytes.getInt(4));
+        }
+        vertexCount = bytes.getInt(8);
+        edgeCount = bytes.getInt(12);
+        int tableSize = bytes.getInt(16);
+        tableMask = tableSize - 1;
+        labelOffsetsPos = bytes.getInt(20);
+        labelBytesPos = bytes.getInt(24);
+        tablePos = bytes.getInt(28);
+        outOffsetsPos = bytes.getInt(32);
+        outRowsPos = bytes.getInt(36);
+        inOffsetsPos = bytes.getInt(40);
+        inRowsPos = bytes.getInt(44);
+        if (bytes.getInt(48) != bytes.limit() || vertexCount < 0 || edgeCount < 0
+                || tableSize <= vertexCount || Integer.bitCount(tableSize) != 1
+                || labelOffsetsPos != HEADER_BYTES
+                || labelBytesPos != labelOffsetsPos + 4L * (vertexCount + 1)
+                || tablePos < labelBytesPos || outOffsetsPos != tablePos + 4L * tableSize
+                || outRowsPos != outOffsetsPos + 4L * (vertexCount + 1)
+                || inOffsetsPos < outRowsPos || inRowsPos != inOffsetsPos + 4L * (vertexCount + 1)
+                || inRowsPos > bytes.limit()) {
+            throw new IOException("not a graph file: corrupt header");
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        if (!RepChecks.EXPENSIVE) {
+            return;
+        }
+        assert labelOffset(vertexCount) == tablePos - labelBytesPos;
+        for (int v = 0; v < vertexCount; v++) {
+            assert id(label(v)) == v;
+        }
+    }
+
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @param vertex a label
+     * @return the id of vertex in this graph, or -1 if it is not a vertex
+     */
+    @Override
+    public int id(String vertex) {
+        byte[] key = vertex.getBytes(StandardCharsets.UTF_8);
+        for (int slot = hash(key) & tableMask; ; slot = (slot + 1) & tableMask) {
+            int entry = bytes.getInt(tablePos + 4 * slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (labelEquals(entry - 1, key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return the label of the vertex with that id
+     */
+    @Override
+    public String label(int id) {
+        int start = labelOffset(id);
+        byte[] label = new byte[labelOffset(id + 1) - start];
+        for (int i = 0; i < label.length; i++) {
+            label[i] = bytes.get(labelBytesPos + start + i);
+        }
+        return new String(label, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return number of edges from that vertex
+     */
+    @Override
+    public int outDegree(int id) {
+        return readVarint(row(outOffsetsPos, outRowsPos, id));
+    }
+
+    /**
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @return number of edges to that vertex
+     */
+    @Override
+    public int inDegree(int id) {
+        return readVarint(row(inOffsetsPos, inRowsPos, id));
+    }
+
+    /**
+     * Visit every edge from a vertex, in increasing order of target id.
+     *
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param consumer receives the target id and weight of each edge
+     */
+    @Override
+    public void forEachTarget(int id, IntEdgeConsumer consumer) {
+        forEachEdge(row(outOffsetsPos, outRowsPos, id), consumer);
+    }
+
+    /**
+     * Visit every edge to a vertex, in increasing order of source id.
+     *
+     * @param id a vertex id, requires 0 <= id < vertexCount()
+     * @param consumer receives the source id and weight of each edge
+     */
+    @Override
+    public void forEachSource(int id, IntEdgeConsumer consumer) {
+        forEachEdge(row(inOffsetsPos, inRowsPos, id), consumer);
+    }
+
+    /**
+     * @param source a vertex id, requires 0 <= source < vertexCount()
+     * @param target a vertex id, requires 0 <= target < vertexCount()
+     * @return the weight of the edge from source to target, or zero if there is
+     *         none; takes time proportional to the out-degree of source
+     */
+    @Override
+    public int weight(int source, int target) {
+        ByteBuffer row = row(outOffsetsPos, outRowsPos, source);
+        int degree = readVarint(row);
+        for (int k = 0, vertex = 0; k < degree && vertex <= target; k++) {
+            vertex += readVarint(row);
+            int weight = readVarint(row);
+            if (vertex == target) {
+                return weight;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Visit every two-edge path source -> middle -> target, in increasing order
+     * of middle id, by merging the sorted out row of source with the sorted in
+     * row of target. Takes time proportional to the sum of their degrees, with
+     * no lookups.
+     *
+     * @param source a vertex id, requires 0 <= source < vertexCount()
+     * @param target a vertex id, requires 0 <= target < vertexCount()
+     * @param action receives the id of each middle vertex and the sum of the
+     *               weights of the two edges through it
+     */
+    @Override
+    public void forEachTwoEdgePath(int source, int target, IntEdgeConsumer action) {
+        ByteBuffer out = row(outOffsetsPos, outRowsPos, source);
+        ByteBuffer in = row(inOffsetsPos, inRowsPos, target);
+        int outLeft = readVarint(out);
+        int inLeft = readVarint(in);
+        int middle = -1, first = 0;
+        int from = -1, second = 0;
+        while (true) {
+            if (middle <= from) {
+                if (outLeft-- == 0) {
+                    return;
+                }
+                middle = Math.max(middle, 0) + readVarint(out);
+                first = readVarint(out);
+            }
+            if (from < middle) {
+                if (inLeft-- == 0) {
+                    return;
+                }
+                from = Math.max(from, 0) + readVarint(in);
+                second = readVarint(in);
+            }
+            if (middle == from) {
+                action.accept(middle, first + second);
+            }
+        }
+    }
+
+    @Override
+    public int targetCount(String source) {
+        int v = id(source);
+        return v < 0 ? 0 : outDegree(v);
+    }
+
+    @Override
+    public int sourceCount(String target) {
+        int v = id(target);
+        return v < 0 ? 0 : inDegree(v);
+    }
+
+    /** Unsupported: a MappedGraph is immutable. */
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    /** Unsupported: a MappedGraph is immutable. */
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    /** Unsupported: a MappedGraph is immutable. */
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return new HashSet<>(vertexView());
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> result = new HashMap<>();
+        forEachSource(target, result::put);
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> result = new HashMap<>();
+        forEachTarget(source, result::put);
+        return result;
+    }
+
+    @Override
+    public Set<String> vertexView() {
+        return new AbstractSet<String>() {
+            @Override public int size() {
+                return vertexCount;
+            }
+            @Override public boolean contains(Object o) {
+                return o instanceof String && id((String) o) >= 0;
+            }
+            @Override public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = 0;
+                    @Override public boolean hasNext() {
+                        return next < vertexCount;
+                    }
+                    @Override public String next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return label(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public void forEachSource(String target, EdgeVisitor<? super String> visitor) {
+        int v = id(target);
+        if (v >= 0) {
+            forEachSource(v, (source, weight) -> visitor.visit(label(source), weight));
+        }
+    }
+
+    @Override
+    public void forEachTarget(String source, EdgeVisitor<? super String> visitor) {
+        int v = id(source);
+        if (v >= 0) {
+            forEachTarget(v, (target, weight) -> visitor.visit(label(target), weight));
+        }
+    }
+
+    // toString()
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int v = 0; v < vertexCount; v++) {
+            String source = label(v);
+            forEachTarget(v, (t, w) -> output.append("(").append(source).append(") --[").append(w)
+                    .append("]--> (").append(label(t)).append(")\n"));
+        }
+        return output.toString();
+    }
+
+    private int labelOffset(int id) {
+        return bytes.getInt(labelOffsetsPos + 4 * id);
+    }
+
+    private boolean labelEquals(int id, byte[] key) {
+        int start = labelOffset(id);
+        if (labelOffset(id + 1) - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (bytes.get(labelBytesPos + start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a buffer positioned at the start of the row of vertex id
+    private ByteBuffer row(int offsetsPos, int rowsPos, int id) {
+        ByteBuffer row = bytes.duplicate();
+        row.position(rowsPos + bytes.getInt(offsetsPos + 4 * id));
+        return row;
+    }
+
+    private static void forEachEdge(ByteBuffer row, IntEdgeConsumer consumer) {
+        int degree = readVarint(row);
+        for (int k = 0, vertex = 0; k < degree; k++) {
+            vertex += readVarint(row);
+            consumer.accept(vertex, readVarint(row));
+        }
+    }
+
+    // FNV-1a, so the hash of a label does not depend on the JVM
+    private static int hash(byte[] key) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xff)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Switch for rep invariant checks that cost time proportional to the size of
+ * a whole graph rather than to the part a mutation touched.
+ * 
+ * <p>Those checks run only when assertions are enabled for this package
+ * (e.g. with VM argument -ea), and can be turned off even then with the
+ * system property {@code -Dgraph.expensiveChecks=false}, for example when
+ * loading large graphs in a build that otherwise keeps assertions on.
+ * Cheap, local checks are plain asserts and are not affected.
+ */
+final class RepChecks {
+    
+    /** True iff whole-graph rep checks should run. */
+    static final boolean EXPENSIVE = RepChecks.class.desiredAssertionStatus()
+            && !"false".equals(System.getProperty("graph.expensiveChecks"));
+    
+    private RepChecks() {}
+    
+}
@@ -0,0 +1,83 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * A mutable multiset of keys with positive weights, ordered heaviest first.
+ * add() and remove() are O(log W) for W distinct weights, and visiting the k
+ * heaviest keys is O(k + log W), without requiring keys to be comparable.
+ * This class is internal to the rep of AdjacencyMapGraph, and also holds the
+ * sorting fallback used by the default Graph.topEdges() and topTargets().
+ * 
+ * @param <K> type of keys, must be immutable
+ */
+class WeightIndex<K> {
+    
+    private final TreeMap<Integer, Set<K>> byWeight = new TreeMap<>(Collections.reverseOrder());
+    
+    // Abstraction function:
+    //      represents the set of (key, weight) pairs such that byWeight.get(weight) contains key.
+    // Representation invariant:
+    //      every weight is positive and every set in byWeight is non-empty.
+    // Safety from rep exposure:
+    //      byWeight is private and final, and its sets are never returned.
+    
+    /**
+     * Add a key.
+     * @param key a key not already in the index with this weight
+     * @param weight its weight, requires weight > 0
+     */
+    void add(K key, int weight) {
+        byWeight.computeIfAbsent(weight, w -> new LinkedHashSet<>()).add(key);
+    }
+    
+    /**
+     * Remove a key, if present.
+     * @param key a key
+     * @param weight the weight it was added with
+     */
+    void remove(K key, int weight) {
+        Set<K> keys = byWeight.get(weight);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            byWeight.remove(weight);
+        }
+    }
+    
+    /**
+     * Visit the heaviest keys in order of decreasing weight; keys of equal
+     * weight are visited in no particular order.
+     * @param k maximum number of keys to visit
+     * @param visitor receives each key and its weight
+     */
+    void visitTop(int k, EdgeVisitor<? super K> visitor) {
+        int remaining = k;
+        for (Map.Entry<Integer, Set<K>> bucket : byWeight.entrySet()) {
+            for (K key : bucket.getValue()) {
+                if (remaining-- <= 0) {
+                    return;
+                }
+                visitor.visit(key, bucket.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Sort edges heaviest first and keep the first k; used where no index is kept.
+     * @param <L> type of vertex labels
+     * @param edges edges to sort; reordered
+     * @param k maximum number of edges to keep, requires k >= 0
+     * @return a new list of the min(k, edges.size()) heaviest edges, heaviest first
+     * @throws IllegalArgumentException if k < 0
+     */
+    static <L> List<WeightedEdge<L>> heaviest(List<WeightedEdge<L>> edges, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        edges.sort((a, b) -> Integer.compare(b.getWeight(), a.getWeight()));
+        return new ArrayList<>(edges.subList(0, Math.min(k, edges.size())));
+    }
+    
+}
@@ -0,0 +1,73 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Objects;
+
+/**
+ * An immutable (source, target, weight) triple, as passed to Graph.setAll().
+ * The weight is not checked here; setAll() validates it when the edge is applied.
+ * 
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class WeightedEdge<L> {
+    
+    private final L source;
+    private final L target;
+    private final int weight;
+    
+    // Abstraction function:
+    //      represents the directed edge from source to target with the given weight.
+    // Representation invariant:
+    //      source and target are not null.
+    // Safety from rep exposure:
+    //      All fields are private and final; labels are immutable.
+    
+    /**
+     * Make an edge.
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight weight of the edge
+     */
+    public WeightedEdge(L source, L target, int weight) {
+        this.source = Objects.requireNonNull(source);
+        this.target = Objects.requireNonNull(target);
+        this.weight = weight;
+    }
+    
+    /** @return label of the source vertex */
+    public L getSource() {
+        return source;
+    }
+    
+    /** @return label of the target vertex */
+    public L getTarget() {
+        return target;
+    }
+    
+    /** @return weight of the edge */
+    public int getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof WeightedEdge)) {
+            return false;
+        }
+        WeightedEdge<?> other = (WeightedEdge<?>) that;
+        return source.equals(other.source) && target.equals(other.target) && weight == other.weight;
+    }
+    
+    @Override
+    public int hashCode() {
+        return (source.hashCode() * 31 + target.hashCode()) * 31 + weight;
+    }
+    
+    @Override
+    public String toString() {
+        return "(" + source + ") --[" + weight + "]--> (" + target + ")";
+    }
+    
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the blocks 0..n-1 of a computation, either inline or split across a
+ * ForkJoinPool. Callers partition their work into blocks of a fixed size that
+ * does not depend on the pool, and combine per-block results in block order,
+ * so the outcome is the same no matter how many threads run the blocks.
+ */
+final class Blocks {
+    
+    /** Number of vertices (or frontier entries) in one block. */
+    static final int SIZE = 1024;
+    
+    private Blocks() {}
+    
+    /**
+     * @param items number of items to partition
+     * @return number of blocks of SIZE items covering them
+     */
+    static int count(int items) {
+        return (items + SIZE - 1) / SIZE;
+    }
+    
+    /**
+     * Run body on every block, returning when all have finished.
+     * @param pool pool to run blocks in, or null to run them in order on this thread
+     * @param blocks number of blocks
+     * @param body called once with each block index 0..blocks-1
+     */
+    static void forEach(ForkJoinPool pool, int blocks, IntConsumer body) {
+        if (pool == null || blocks <= 1) {
+            for (int b = 0; b < blocks; b++) {
+                body.accept(b);
+            }
+        } else {
+            pool.invoke(new BlockTask(body, 0, blocks));
+        }
+    }
+    
+    /* Splits [lo, hi) in half until a single block remains. */
+    private static final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final IntConsumer body;
+        private final int lo;
+        private final int hi;
+        
+        BlockTask(IntConsumer body, int lo, int hi) {
+            this.body = body;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.accept(lo);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new BlockTask(body, lo, mid), new BlockTask(body, mid, hi));
+            }
+        }
+    }
+    
+}
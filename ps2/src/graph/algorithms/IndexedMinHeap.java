@@ -0,0 +1,123 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of the ints 0..capacity-1 keyed by long priorities,
+ * supporting decrease-key in O(log n).
+ * This class is internal to the rep of ShortestPaths.
+ */
+class IndexedMinHeap {
+    
+    private final int[] heap;
+    private final int[] position;
+    private final long[] priority;
+    private int size = 0;
+    
+    // Abstraction function:
+    //      represents the set { heap[i] | 0 <= i < size }, item x having priority[x].
+    // Representation invariant:
+    //      position[heap[i]] == i for 0 <= i < size, position[x] == -1 for items not in the heap;
+    //      priority[heap[(i - 1) / 2]] <= priority[heap[i]] for 0 < i < size.
+    // Safety from rep exposure:
+    //      All fields are private and final; arrays are never returned.
+    
+    /**
+     * Make an empty heap.
+     * @param capacity items are 0..capacity-1
+     */
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+    
+    /** @return true iff the heap is empty */
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @param item an item
+     * @return true iff item is in the heap
+     */
+    boolean contains(int item) {
+        return position[item] >= 0;
+    }
+    
+    /**
+     * Insert item, or lower its priority if it is already in the heap with a higher one.
+     * @param item an item
+     * @param newPriority its priority
+     */
+    void insertOrDecrease(int item, long newPriority) {
+        if (position[item] < 0) {
+            heap[size] = item;
+            position[item] = size;
+            priority[item] = newPriority;
+            size++;
+        } else if (newPriority < priority[item]) {
+            priority[item] = newPriority;
+        } else {
+            return;
+        }
+        siftUp(position[item]);
+    }
+    
+    /**
+     * Remove an item of minimum priority. Requires the heap is not empty.
+     * @return the removed item
+     */
+    int removeMin() {
+        int min = heap[0];
+        size--;
+        position[min] = -1;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+    
+    private void siftUp(int i) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (priority[heap[parent]] <= priority[item]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+    
+    private void siftDown(int i) {
+        int item = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && priority[heap[child + 1]] < priority[heap[child]]) {
+                child++;
+            }
+            if (priority[item] <= priority[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+    
+}
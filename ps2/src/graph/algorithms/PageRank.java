@@ -0,0 +1,168 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Weighted PageRank by power iteration.
+ * 
+ * <p>A random surfer at vertex v follows an edge v -> t with probability
+ * proportional to its weight, or, with probability 1 - damping (and always
+ * from a vertex with no outgoing edges), jumps to a uniformly random vertex.
+ * The rank of a vertex is the long-run fraction of time the surfer spends there.
+ */
+public final class PageRank {
+    
+    /** Damping factor used by rank(graph). */
+    public static final double DEFAULT_DAMPING = 0.85;
+    /** Convergence threshold on the L1 change between iterations used by rank(graph). */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    /** Iteration limit used by rank(graph). */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    
+    private PageRank() {}
+    
+    /**
+     * Rank the vertices with the default parameters.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @return map from every vertex to its rank; ranks sum to 1 (for a non-empty graph)
+     */
+    public static <L> Map<L, Double> rank(Graph<L> graph) {
+        return rank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+    
+    /**
+     * Rank the vertices.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param damping probability of following an edge, requires 0 <= damping < 1
+     * @param tolerance stop when the L1 change between iterations is at most this
+     * @param maxIterations stop after this many iterations, requires >= 1
+     * @return map from every vertex to its rank; ranks sum to 1 (for a non-empty graph)
+     */
+    public static <L> Map<L, Double> rank(Graph<L> graph, double damping, double tolerance, int maxIterations) {
+        return rank(graph, damping, tolerance, maxIterations, null);
+    }
+    
+    /**
+     * Rank the vertices with the default parameters, in parallel.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param pool pool to run the iterations in
+     * @return the same ranks as rank(graph)
+     */
+    public static <L> Map<L, Double> rank(Graph<L> graph, ForkJoinPool pool) {
+        return rank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, pool);
+    }
+    
+    /**
+     * Rank the vertices, in parallel if a pool is given.
+     * The vertices are split into fixed-size blocks and partial sums are
+     * combined in block order, so the ranks are exactly the same whether or
+     * not a pool is used and however many threads it has.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param damping probability of following an edge, requires 0 <= damping < 1
+     * @param tolerance stop when the L1 change between iterations is at most this
+     * @param maxIterations stop after this many iterations, requires >= 1
+     * @param pool pool to run the iterations in, or null to run on this thread
+     * @return map from every vertex to its rank; ranks sum to 1 (for a non-empty graph)
+     */
+    public static <L> Map<L, Double> rank(Graph<L> graph, double damping, double tolerance, int maxIterations,
+            ForkJoinPool pool) {
+        if (damping < 0 || damping >= 1 || maxIterations < 1) {
+            throw new IllegalArgumentException("invalid PageRank parameters");
+        }
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        double[] rank = iterate(frozen, damping, tolerance, maxIterations, pool);
+        Map<L, Double> result = new HashMap<>();
+        for (int v = 0; v < rank.length; v++) {
+            result.put(frozen.label(v), rank[v]);
+        }
+        return result;
+    }
+    
+    /**
+     * Power iteration over vertex ids, pulling rank along incoming edges.
+     * 
+     * @param graph a graph
+     * @param damping probability of following an edge
+     * @param tolerance L1 convergence threshold
+     * @param maxIterations iteration limit
+     * @param pool pool to run blocks of vertices in, or null
+     * @return rank of each vertex id
+     */
+    static double[] iterate(FrozenGraph<?> graph, double damping, double tolerance, int maxIterations,
+            ForkJoinPool pool) {
+        int n = graph.vertexCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        int blocks = Blocks.count(n);
+        long[] outWeight = new long[n];
+        Blocks.forEach(pool, blocks, b -> {
+            for (int v = b * Blocks.SIZE, end = Math.min(n, v + Blocks.SIZE); v < end; v++) {
+                for (int k = 0; k < graph.outDegree(v); k++) {
+                    outWeight[v] += graph.targetWeight(v, k);
+                }
+            }
+        });
+        double[][] ranks = { new double[n], new double[n] };
+        Arrays.fill(ranks[0], 1.0 / n);
+        double[] partial = new double[blocks];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] rank = ranks[iteration & 1];
+            double[] next = ranks[~iteration & 1];
+            
+            Blocks.forEach(pool, blocks, b -> {
+                double dangling = 0;
+                for (int v = b * Blocks.SIZE, end = Math.min(n, v + Blocks.SIZE); v < end; v++) {
+                    if (outWeight[v] == 0) {
+                        dangling += rank[v];
+                    }
+                }
+                partial[b] = dangling;
+            });
+            double base = (1 - damping) / n + damping * sum(partial) / n;
+            
+            Blocks.forEach(pool, blocks, b -> {
+                double change = 0;
+                for (int v = b * Blocks.SIZE, end = Math.min(n, v + Blocks.SIZE); v < end; v++) {
+                    double sum = 0;
+                    for (int k = 0; k < graph.inDegree(v); k++) {
+                        int s = graph.source(v, k);
+                        sum += rank[s] * graph.sourceWeight(v, k) / outWeight[s];
+                    }
+                    next[v] = base + damping * sum;
+                    change += Math.abs(next[v] - rank[v]);
+                }
+                partial[b] = change;
+            });
+            if (sum(partial) <= tolerance) {
+                return next;
+            }
+        }
+        return ranks[maxIterations & 1];
+    }
+    
+    // sum in index order, so the result does not depend on scheduling
+    private static double sum(double[] values) {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+    
+}
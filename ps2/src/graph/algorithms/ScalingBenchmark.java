@@ -0,0 +1,94 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Measures how parallel breadth-first search and PageRank scale with the
+ * number of threads, on a random graph frozen once up front.
+ * 
+ * <p>Usage: ScalingBenchmark [VERTICES [EDGES_PER_VERTEX [MAX_THREADS]]]
+ * <br>defaults: 200000 vertices, 8 edges per vertex, all available processors.
+ * 
+ * <p>Prints one line per thread count with the best of several runs of each
+ * algorithm and the speedup over one thread.
+ */
+public final class ScalingBenchmark {
+    
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    
+    private ScalingBenchmark() {}
+    
+    /**
+     * Run the benchmark.
+     * @param args optional vertex count, edges per vertex, and maximum thread count
+     */
+    public static void main(String[] args) {
+        int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        
+        FrozenGraph<Integer> graph = randomGraph(vertices, degree, new Random(6005));
+        System.out.println(graph.vertexCount() + " vertices, " + graph.edgeCount() + " edges");
+        System.out.println("threads\tbfs ms\tspeedup\tpagerank ms\tspeedup");
+        double bfsBase = 0;
+        double rankBase = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double bfs = bestMillis(() -> Traversals.breadthFirst(graph, 0, pool));
+                double rank = bestMillis(() -> PageRank.rank(graph, PageRank.DEFAULT_DAMPING, 0, 20, pool));
+                if (threads == 1) {
+                    bfsBase = bfs;
+                    rankBase = rank;
+                }
+                System.out.printf("%d\t%.1f\t%.2f\t%.1f\t%.2f%n",
+                        threads, bfs, bfsBase / bfs, rank, rankBase / rank);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    // powers of two, then maxThreads itself, then past the end
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) {
+            return maxThreads + 1;
+        }
+        return Math.min(threads * 2, maxThreads);
+    }
+    
+    // a random graph where every vertex has degree out-edges, frozen
+    private static FrozenGraph<Integer> randomGraph(int vertices, int degree, Random random) {
+        Graph<Integer> graph = Graph.empty();
+        for (int v = 0; v < vertices; v++) {
+            graph.add(v);
+            for (int k = 0; k < degree; k++) {
+                graph.set(v, random.nextInt(vertices), 1 + random.nextInt(10));
+            }
+        }
+        return Graph.freeze(graph);
+    }
+    
+    // best wall-clock time of MEASURED_RUNS runs after warming up
+    private static double bestMillis(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+    
+}
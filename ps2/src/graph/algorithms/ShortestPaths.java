@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.*;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Immutable single-source shortest paths in a weighted directed graph, where
+ * the length of a path is the sum of its edge weights.
+ * 
+ * @param <L> type of vertex labels in the graph
+ */
+public class ShortestPaths<L> {
+    
+    private final FrozenGraph<L> graph;
+    private final int source;
+    private final long[] distance;
+    private final int[] previous;
+    
+    // Abstraction function:
+    //      represents the shortest paths in graph from graph.label(source): vertex v is
+    //      reachable iff distance[v] != UNREACHABLE, at distance distance[v], and a
+    //      shortest path to v ends with the edge previous[v] -> v (v != source).
+    // Representation invariant:
+    //      distance[source] == 0, previous[source] == -1;
+    //      for reachable v != source, previous[v] is reachable and
+    //        distance[v] == distance[previous[v]] + weight(previous[v], v).
+    // Safety from rep exposure:
+    //      All fields are private and final; arrays are never returned; graph is immutable.
+    
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    
+    /**
+     * Compute shortest paths from source with Dijkstra's algorithm, using a
+     * binary heap: O((V + E) log V) after freezing graph (free if it is
+     * already a FrozenGraph).
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param source a vertex of graph
+     * @return shortest paths from source
+     * @throws IllegalArgumentException if source is not a vertex of graph
+     */
+    public static <L> ShortestPaths<L> dijkstra(Graph<L> graph, L source) {
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        int start = frozen.id(source);
+        if (start < 0) {
+            throw new IllegalArgumentException("source is not a vertex: " + source);
+        }
+        int n = frozen.vertexCount();
+        long[] distance = new long[n];
+        int[] previous = new int[n];
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(previous, -1);
+        distance[start] = 0;
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        heap.insertOrDecrease(start, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.removeMin();
+            for (int k = 0; k < frozen.outDegree(v); k++) {
+                int t = frozen.target(v, k);
+                long candidate = distance[v] + frozen.targetWeight(v, k);
+                if (candidate < distance[t]) {
+                    distance[t] = candidate;
+                    previous[t] = v;
+                    heap.insertOrDecrease(t, candidate);
+                }
+            }
+        }
+        return new ShortestPaths<>(frozen, start, distance, previous);
+    }
+    
+    private ShortestPaths(FrozenGraph<L> graph, int source, long[] distance, int[] previous) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.previous = previous;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert distance[source] == 0 && previous[source] == -1;
+    }
+    
+    /**
+     * @param target a label
+     * @return true iff target is a vertex reachable from the source
+     */
+    public boolean isReachable(L target) {
+        int t = graph.id(target);
+        return t >= 0 && distance[t] != UNREACHABLE;
+    }
+    
+    /**
+     * @param target a vertex reachable from the source
+     * @return length of a shortest path from the source to target
+     * @throws IllegalArgumentException if target is not reachable
+     */
+    public long distanceTo(L target) {
+        if (!isReachable(target)) {
+            throw new IllegalArgumentException("not reachable: " + target);
+        }
+        return distance[graph.id(target)];
+    }
+    
+    /**
+     * @param target a label
+     * @return the vertices of a shortest path from the source to target, starting
+     *         with the source and ending with target, or an empty list if target
+     *         is not reachable
+     */
+    public List<L> pathTo(L target) {
+        if (!isReachable(target)) {
+            return Collections.emptyList();
+        }
+        LinkedList<L> path = new LinkedList<>();
+        for (int v = graph.id(target); v != -1; v = previous[v]) {
+            path.addFirst(graph.label(v));
+        }
+        return path;
+    }
+    
+}
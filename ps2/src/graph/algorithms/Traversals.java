@@ -0,0 +1,253 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Unweighted traversals, strongly connected components and topological
+ * sorting of directed graphs.
+ * 
+ * <p>Every operation freezes its input once (free if it is already a
+ * FrozenGraph) and then works on dense int ids, in O(V + E).
+ */
+public final class Traversals {
+    
+    private Traversals() {}
+    
+    /**
+     * Breadth-first search following edge directions, ignoring weights.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param start a label
+     * @return a map from each vertex reachable from start to its number of
+     *         edges from start, iterating in the order the search visits the
+     *         vertices; empty if start is not a vertex
+     */
+    public static <L> LinkedHashMap<L, Integer> breadthFirst(Graph<L> graph, L start) {
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        LinkedHashMap<L, Integer> result = new LinkedHashMap<>();
+        int s = frozen.id(start);
+        if (s < 0) {
+            return result;
+        }
+        int[] depth = new int[frozen.vertexCount()];
+        Arrays.fill(depth, -1);
+        int[] queue = new int[frozen.vertexCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        depth[s] = 0;
+        while (head < tail) {
+            int v = queue[head++];
+            result.put(frozen.label(v), depth[v]);
+            for (int k = 0; k < frozen.outDegree(v); k++) {
+                int t = frozen.target(v, k);
+                if (depth[t] < 0) {
+                    depth[t] = depth[v] + 1;
+                    queue[tail++] = t;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Breadth-first search following edge directions, ignoring weights,
+     * expanding each frontier in parallel.
+     * 
+     * <p>Each frontier is split into fixed-size blocks; a vertex discovered
+     * from several frontier vertices is credited to the edge that the
+     * sequential search would have followed first, so the result, including
+     * its iteration order, is exactly that of breadthFirst(graph, start).
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @param start a label
+     * @param pool pool to expand frontiers in
+     * @return the same map as breadthFirst(graph, start)
+     */
+    public static <L> LinkedHashMap<L, Integer> breadthFirst(Graph<L> graph, L start, ForkJoinPool pool) {
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        LinkedHashMap<L, Integer> result = new LinkedHashMap<>();
+        int s = frozen.id(start);
+        if (s < 0) {
+            return result;
+        }
+        int n = frozen.vertexCount();
+        int[] depth = new int[n];
+        Arrays.fill(depth, -1);
+        // claim[t] = smallest (frontier position << 32 | edge index) of an edge reaching t
+        AtomicLongArray claim = new AtomicLongArray(n);
+        for (int v = 0; v < n; v++) {
+            claim.set(v, Long.MAX_VALUE);
+        }
+        int[] frontier = { s };
+        depth[s] = 0;
+        for (int level = 0; frontier.length > 0; level++) {
+            for (int v : frontier) {
+                result.put(frozen.label(v), level);
+            }
+            int[] current = frontier;
+            int blocks = Blocks.count(current.length);
+            int[][] found = new int[blocks][];
+            Blocks.forEach(pool, blocks, b -> {
+                int[] local = new int[16];
+                int size = 0;
+                for (int p = b * Blocks.SIZE, end = Math.min(current.length, p + Blocks.SIZE); p < end; p++) {
+                    int v = current[p];
+                    for (int k = 0; k < frozen.outDegree(v); k++) {
+                        int t = frozen.target(v, k);
+                        if (depth[t] >= 0) continue;
+                        long key = (long) p << 32 | k;
+                        long old = claim.get(t);
+                        while (key < old && !claim.compareAndSet(t, old, key)) {
+                            old = claim.get(t);
+                        }
+                        if (old == Long.MAX_VALUE) {
+                            // first to reach t, so this block reports it
+                            if (size == local.length) {
+                                local = Arrays.copyOf(local, size * 2);
+                            }
+                            local[size++] = t;
+                        }
+                    }
+                }
+                found[b] = Arrays.copyOf(local, size);
+            });
+            int total = 0;
+            for (int[] block : found) {
+                total += block.length;
+            }
+            long[] keys = new long[total];
+            int i = 0;
+            for (int[] block : found) {
+                for (int t : block) {
+                    keys[i++] = claim.get(t);
+                }
+            }
+            Arrays.sort(keys);
+            frontier = new int[total];
+            for (i = 0; i < total; i++) {
+                int t = frozen.target(current[(int) (keys[i] >>> 32)], (int) keys[i]);
+                frontier[i] = t;
+                depth[t] = level + 1;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Find the strongly connected components with Tarjan's algorithm
+     * (iterative, so deep graphs do not overflow the stack).
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph; not modified
+     * @return the strongly connected components, each vertex in exactly one,
+     *         in reverse topological order of the component graph: no edge
+     *         leads from a component to one listed after it
+     */
+    public static <L> List<Set<L>> stronglyConnectedComponents(Graph<L> graph) {
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        int n = frozen.vertexCount();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] nextEdge = new int[n];
+        int counter = 0;
+        List<Set<L>> components = new ArrayList<>();
+        
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            nextEdge[root] = 0;
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (nextEdge[v] < frozen.outDegree(v)) {
+                    int t = frozen.target(v, nextEdge[v]++);
+                    if (index[t] < 0) {
+                        index[t] = lowLink[t] = counter++;
+                        stack[stackSize++] = t;
+                        onStack[t] = true;
+                        nextEdge[t] = 0;
+                        callStack[depth++] = t;
+                    } else if (onStack[t]) {
+                        lowLink[v] = Math.min(lowLink[v], index[t]);
+                    }
+                } else {
+                    depth--;
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                    }
+                    if (lowLink[v] == index[v]) {
+                        Set<L> component = new HashSet<>();
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            component.add(frozen.label(w));
+                        } while (w != v);
+                        components.add(component);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+    
+    /**
+     * Sort the vertices so that every edge goes from an earlier to a later
+     * vertex (Kahn's algorithm).
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph with no cycles (including self-loops); not modified
+     * @return all vertices of graph in a topological order
+     * @throws IllegalArgumentException if graph has a cycle
+     */
+    public static <L> List<L> topologicalSort(Graph<L> graph) {
+        FrozenGraph<L> frozen = Graph.freeze(graph);
+        int n = frozen.vertexCount();
+        int[] remaining = new int[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            remaining[v] = frozen.inDegree(v);
+            if (remaining[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        List<L> order = new ArrayList<>(n);
+        while (head < tail) {
+            int v = queue[head++];
+            order.add(frozen.label(v));
+            for (int k = 0; k < frozen.outDegree(v); k++) {
+                int t = frozen.target(v, k);
+                if (--remaining[t] == 0) {
+                    queue[tail++] = t;
+                }
+            }
+        }
+        if (order.size() != n) {
+            throw new IllegalArgumentException("graph has a cycle");
+        }
+        return order;
+    }
+    
+}
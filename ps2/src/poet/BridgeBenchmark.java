@@ -0,0 +1,123 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures the latency of GraphPoet.poem(input, k) as the most bridge words k
+ * grows, on inputs made of words drawn from the corpus.
+ *
+ * <p>Usage: BridgeBenchmark [CORPUS [MAX_K [POEMS [WORDS_PER_POEM]]]]
+ * <br>defaults: src/poet/mugar-omni-theater.txt, k up to 4, 2000 poems of 8 words.
+ * <br>CORPUS may also be zipf:V:N for a synthetic corpus of N words drawn from
+ * a Zipf distribution over V words, e.g. zipf:200000:1000000 for a large
+ * vocabulary with hub words of very high degree.
+ *
+ * <p>Prints one line per k with the median, 99th percentile and maximum time
+ * per poem in microseconds, and the mean number of words added per poem.
+ */
+public final class BridgeBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private BridgeBenchmark() {}
+
+    /**
+     * Run the benchmark.
+     * @param args optional corpus file, largest k, number of poems, and words per poem
+     * @throws IOException if the corpus cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String corpusArg = args.length > 0 ? args[0] : "src/poet/mugar-omni-theater.txt";
+        File corpus = corpusArg.startsWith("zipf:") ? zipfCorpus(corpusArg) : new File(corpusArg);
+        int maxK = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int poems = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int wordsPerPoem = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        GraphPoet poet = new GraphPoet(corpus);
+        List<String> words = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            WordScanner.scan(channel, words::add);
+        }
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("corpus has no words: " + corpus);
+        }
+        Random random = new Random(6005);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < poems; i++) {
+            StringBuilder input = new StringBuilder();
+            for (int j = 0; j < wordsPerPoem; j++) {
+                input.append(j == 0 ? "" : " ").append(words.get(random.nextInt(words.size())));
+            }
+            inputs.add(input.toString());
+        }
+
+        System.out.println(words.size() + " corpus words, " + poems + " poems of " + wordsPerPoem + " words");
+        System.out.println("k\tmedian us\tp99 us\tmax us\twords added");
+        for (int k = 1; k <= maxK; k++) {
+            long[] nanos = new long[poems];
+            long added = 0;
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                added = 0;
+                for (int i = 0; i < poems; i++) {
+                    long start = System.nanoTime();
+                    String poem = poet.poem(inputs.get(i), k);
+                    nanos[i] = System.nanoTime() - start;
+                    added += poem.split(" ").length - wordsPerPoem;
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.println(String.format(Locale.ROOT, "%d\t%.1f\t%.1f\t%.1f\t%.2f", k,
+                    nanos[poems / 2] / 1e3, nanos[Math.min(poems - 1, poems * 99 / 100)] / 1e3,
+                    nanos[poems - 1] / 1e3, (double) added / poems));
+        }
+        if (corpusArg.startsWith("zipf:")) {
+            corpus.delete();
+        }
+    }
+
+    /*
+     * A temporary file of the corpus zipf:V:N, with word i of the vocabulary
+     * drawn with probability proportional to 1/(i+1), 20 words to a line.
+     */
+    private static File zipfCorpus(String spec) throws IOException {
+        String[] fields = spec.split(":");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("expected zipf:V:N, got " + spec);
+        }
+        int vocabulary = Integer.parseInt(fields[1]);
+        int length = Integer.parseInt(fields[2]);
+        double[] cumulative = new double[vocabulary];
+        double total = 0;
+        for (int w = 0; w < vocabulary; w++) {
+            total += 1.0 / (w + 1);
+            cumulative[w] = total;
+        }
+        Random random = new Random(6005);
+        File file = File.createTempFile("zipf", ".txt");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < length; i++) {
+                int w = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                out.write("w" + Math.min(vocabulary - 1, w < 0 ? -w - 1 : w));
+                out.write(i % 20 == 19 ? "\n" : " ");
+            }
+        }
+        return file;
+    }
+
+}
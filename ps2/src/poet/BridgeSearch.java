@@ -0,0 +1,305 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import graph.IndexedGraph;
+
+/**
+ * Bounded best-first search for the maximum-weight path of several edges
+ * between two words of a word affinity graph.
+ *
+ * <p>A bridge path from source to target is a path source -> b1 -> ... -> bj
+ * -> target through 1 <= j <= maxMiddles middle words that are distinct from
+ * each other, though any of them may be source or target, as the one bridge
+ * word of GraphPoet.poem() may be; its weight is the sum of the weights of
+ * its edges. The best
+ * bridge path has maximum weight, then fewest middle words, then the
+ * alphabetically first sequence of middle words.
+ *
+ * <p>Partial paths are expanded in order of an upper bound on the weight of
+ * any bridge path extending them, so the first complete path reached is a
+ * best one. The bound is the weight of the heaviest walk (which may repeat
+ * words) from the last word of the path to target with the edges left, found
+ * for every word at once by extending walks backwards from target before the
+ * search starts. A path with two edges left is completed directly with
+ * IndexedGraph.forEachTwoEdgePath, which scans the smaller of the edges from
+ * its last word and the edges to target.
+ *
+ * <p>The search is bounded in time and memory whatever the size of the graph.
+ * Apart from the edges from source and to target, which are always scanned,
+ * the backward walks scan at most MAX_SCANNED_EDGES edges, heaviest walks
+ * first, and so do the expansions of partial paths; words the walks did not
+ * reach are not used. Each expansion also keeps only the MAX_BRANCHING
+ * extensions with the highest bounds, and at most MAX_EXPANSIONS partial
+ * paths are expanded. If any of these limits cuts off part of the search,
+ * the best path found in the rest is used.
+ */
+final class BridgeSearch {
+
+    /** Partial paths expanded per search before giving up on finding a better one. */
+    static final int MAX_EXPANSIONS = 1 << 12;
+
+    /** Extensions of a partial path kept by one expansion. */
+    static final int MAX_BRANCHING = 64;
+
+    /** Edges scanned per search by the backward walks, and again by the expansions. */
+    static final int MAX_SCANNED_EDGES = 1 << 14;
+
+    /* A path from the source, linked back through previous; complete iff it ends at target. */
+    private static final class Step {
+        private final int vertex;
+        private final Step previous;
+        private final int edges;
+        private final long weight;
+        private final long bound;
+        private final boolean complete;
+
+        Step(int vertex, Step previous, int edges, long weight, long bound, boolean complete) {
+            this.vertex = vertex;
+            this.previous = previous;
+            this.edges = edges;
+            this.weight = weight;
+            this.bound = bound;
+            this.complete = complete;
+        }
+
+        // true iff v is one of the middle words of this partial path
+        boolean visits(int v) {
+            for (Step step = this; step.previous != null; step = step.previous) {
+                if (step.vertex == v) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private BridgeSearch() {}
+
+    /**
+     * Find the best bridge path.
+     *
+     * @param graph word affinity graph, not modified during the search
+     * @param source id of the first word
+     * @param target id of the last word
+     * @param maxMiddles most middle words, at least 1
+     * @param maxExpansions most partial paths to expand
+     * @return ids of the middle words of the best bridge path found, in order,
+     *         or an empty array if none was found
+     */
+    static int[] best(IndexedGraph<String> graph, int source, int target, int maxMiddles, int maxExpansions) {
+        int maxEdges = maxMiddles + 1;
+        IntLongHashMap[] walks = heaviestWalks(graph, target, maxEdges - 1, MAX_SCANNED_EDGES);
+        if (walks[1].size() == 0 || graph.outDegree(source) == 0) {
+            return new int[0];
+        }
+
+        PriorityQueue<Step> frontier = new PriorityQueue<>((a, b) -> Long.compare(b.bound, a.bound));
+        Step root = new Step(source, null, 0, 0, Long.MAX_VALUE, false);
+        frontier.add(root);
+        // start from the best one-word bridge, so no limit can lose it
+        Step[] best = { finish(graph, root, target) };
+        int expansions = 0;
+        int scanned = 0;
+        while (!frontier.isEmpty()) {
+            Step step = frontier.poll();
+            if (best[0] != null && step.bound < best[0].weight) {
+                break; // nothing left can beat or tie best
+            }
+            if (step.complete) {
+                if (best[0] == null || better(graph, step, best[0])) {
+                    best[0] = step;
+                }
+                continue;
+            }
+            if (expansions++ == maxExpansions) {
+                break;
+            }
+            boolean finishing = maxEdges - step.edges == 2;
+            int cost = step.edges == 0 ? 0 // the edges from source are always scanned
+                    : finishing ? Math.min(graph.outDegree(step.vertex), graph.inDegree(target))
+                    : graph.outDegree(step.vertex);
+            if (cost > MAX_SCANNED_EDGES - scanned) {
+                continue;
+            }
+            scanned += cost;
+            if (finishing) {
+                Step finished = finish(graph, step, target);
+                if (finished != null) {
+                    offer(frontier, best, finished);
+                }
+                continue;
+            }
+            // the MAX_BRANCHING extensions with the highest bounds, lowest first
+            PriorityQueue<Step> extensions = new PriorityQueue<>(
+                    (a, b) -> a.bound != b.bound ? Long.compare(a.bound, b.bound) : Integer.compare(b.vertex, a.vertex));
+            graph.forEachTarget(step.vertex, (next, weight) -> {
+                long total = step.weight + weight;
+                int edges = step.edges + 1;
+                if (next == target && edges >= 2) {
+                    keep(extensions, new Step(next, step, edges, total, total, true));
+                }
+                // target may also be a middle word, on the way back to itself
+                long rest = heaviest(walks, next, maxEdges - edges);
+                if (rest > 0 && !step.visits(next)) {
+                    keep(extensions, new Step(next, step, edges, total, total + rest, false));
+                }
+            });
+            for (Step extension : extensions) {
+                offer(frontier, best, extension);
+            }
+        }
+        if (best[0] == null) {
+            return new int[0];
+        }
+        int[] middles = new int[best[0].edges - 1];
+        Step step = best[0].previous;
+        for (int i = middles.length - 1; i >= 0; i--, step = step.previous) {
+            middles[i] = step.vertex;
+        }
+        return middles;
+    }
+
+    // the best complete path extending step with an edge to target or with two
+    // edges through a middle word, or null if there is none
+    private static Step finish(IndexedGraph<String> graph, Step step, int target) {
+        Step direct = null;
+        int last = step.edges == 0 ? 0 : graph.weight(step.vertex, target);
+        if (last > 0) {
+            long total = step.weight + last;
+            direct = new Step(target, step, step.edges + 1, total, total, true);
+        }
+        int[] middle = { -1, 0 }; // id and weight of the two edges
+        graph.forEachTwoEdgePath(step.vertex, target, (m, weight) -> {
+            if (!step.visits(m) && (weight > middle[1]
+                    || (weight == middle[1] && graph.label(m).compareTo(graph.label(middle[0])) < 0))) {
+                middle[0] = m;
+                middle[1] = weight;
+            }
+        });
+        if (middle[0] < 0) {
+            return direct;
+        }
+        long total = step.weight + middle[1];
+        // the weight of the path up to the middle alone is not needed
+        Step through = new Step(middle[0], step, step.edges + 1, step.weight, total, false);
+        Step twoEdges = new Step(target, through, step.edges + 2, total, total, true);
+        return direct == null || better(graph, twoEdges, direct) ? twoEdges : direct;
+    }
+
+    /*
+     * walks[r] maps each word with a walk of exactly r edges to target, not
+     * following any edge from a word to itself except a last edge from target
+     * to target (a bridge path never repeats a middle word), to the weight of
+     * the heaviest such walk, for 1 <= r <= maxEdges; walks[0] is empty.
+     * Beyond the edges to target, at most maxScanned edges are scanned, with
+     * the heaviest walks of each length extended first; if the limit is
+     * reached, some words are missing and some weights are too low.
+     */
+    private static IntLongHashMap[] heaviestWalks(IndexedGraph<String> graph, int target, int maxEdges,
+                                                  int maxScanned) {
+        IntLongHashMap[] walks = new IntLongHashMap[maxEdges + 1];
+        walks[0] = new IntLongHashMap();
+        walks[1] = new IntLongHashMap();
+        graph.forEachSource(target, walks[1]::putMax);
+        int scanned = 0;
+        for (int r = 2; r <= maxEdges; r++) {
+            IntLongHashMap previous = walks[r - 1];
+            IntLongHashMap longer = new IntLongHashMap();
+            for (int next : heaviestFirst(previous)) {
+                if (scanned == maxScanned) {
+                    break;
+                }
+                int degree = graph.inDegree(next);
+                if (degree > maxScanned - scanned) {
+                    continue; // too many edges for what is left: walks through next stop here
+                }
+                scanned += degree;
+                long rest = previous.get(next, 0);
+                graph.forEachSource(next, (v, weight) -> {
+                    if (v != next) {
+                        longer.putMax(v, weight + rest);
+                    }
+                });
+            }
+            walks[r] = longer;
+        }
+        return walks;
+    }
+
+    // weight of the heaviest walk of 1 to edges edges from word to target, or 0 if none
+    private static long heaviest(IntLongHashMap[] walks, int word, int edges) {
+        long heaviest = 0;
+        for (int r = 1; r <= edges; r++) {
+            heaviest = Math.max(heaviest, walks[r].get(word, 0));
+        }
+        return heaviest;
+    }
+
+    // the words of walks, heaviest walk first
+    private static int[] heaviestFirst(IntLongHashMap walks) {
+        // sort (weight, word) pairs packed into longs; capping the weight only
+        // affects the order among walks heavier than any real corpus gives
+        long[] packed = new long[walks.size()];
+        int[] words = walks.keys();
+        for (int i = 0; i < words.length; i++) {
+            packed[i] = Math.min(walks.get(words[i], 0), 0xFFFFFFFFL) << 31 | words[i];
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < words.length; i++) {
+            words[i] = (int) (packed[words.length - 1 - i] & Integer.MAX_VALUE);
+        }
+        return words;
+    }
+
+    // add extension to the lowest-first queue of the MAX_BRANCHING best extensions
+    private static void keep(PriorityQueue<Step> extensions, Step extension) {
+        extensions.add(extension);
+        if (extensions.size() > MAX_BRANCHING) {
+            extensions.poll();
+        }
+    }
+
+    // add step to frontier unless its bound is below the best complete path so far
+    private static void offer(PriorityQueue<Step> frontier, Step[] best, Step step) {
+        if (best[0] == null || step.bound >= best[0].weight) {
+            frontier.add(step);
+        }
+    }
+
+    // true iff complete path a beats complete path b
+    private static boolean better(IndexedGraph<String> graph, Step a, Step b) {
+        if (a.weight != b.weight) {
+            return a.weight > b.weight;
+        }
+        if (a.edges != b.edges) {
+            return a.edges < b.edges;
+        }
+        List<String> aWords = middleWords(graph, a);
+        List<String> bWords = middleWords(graph, b);
+        for (int i = 0; i < aWords.size(); i++) {
+            int order = aWords.get(i).compareTo(bWords.get(i));
+            if (order != 0) {
+                return order < 0;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> middleWords(IndexedGraph<String> graph, Step complete) {
+        List<String> words = new ArrayList<>();
+        for (Step step = complete.previous; step.previous != null; step = step.previous) {
+            words.add(graph.label(step.vertex));
+        }
+        Collections.reverse(words);
+        return words;
+    }
+
+}
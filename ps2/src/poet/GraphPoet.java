@@ -5,11 +5,35 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 import graph.Graph;
+import graph.IndexedGraph;
+import graph.IntGraph;
+import graph.InternedGraph;
+import graph.Interner;
+import graph.MappedGraph;
 
 /**
  * A graph-based poetry generator.
@@ -55,100 +79,587 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    private IndexedGraph<String> graph;
+    private Bigrams bigrams;
+    private final Map<Long, Integer> bridges = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final LongAdder poemCount = new LongAdder();
+    private final LongAdder wordCount = new LongAdder();
+    private final LongAdder poemNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    
+    /** Most word pairs whose best bridge poem() remembers. */
+    private static final int MAX_CACHED_BRIDGES = 1 << 16;
+    
+    /**
+     * True iff rep checks that walk the whole graph should run: with assertions
+     * on, unless turned off with -Dgraph.expensiveChecks=false as in the graph
+     * package.
+     */
+    private static final boolean EXPENSIVE_CHECKS = GraphPoet.class.desiredAssertionStatus()
+            && !"false".equals(System.getProperty("graph.expensiveChecks"));
     
     // Abstraction function:
-    //   graph represents the word affinity graph deriving from a corpus of text.
+    //   graph represents the word affinity graph deriving from a corpus of text,
+    //      with each word also identified by its int id in graph.
     //      - Each vertex is a word (lowercase, as defined above)
     //      - There is a directed edge from w1 to w2 with weight n if w1 is immediately followed by w2 n times in the corpus
     // Representation invariant:
     //      - All vertices are non-empty, lowercase, non-space, non-newline strings
     //      - All edge weights >= 1
+    //   bigrams is null, or holds the counts that graph is a view of
+    //   bridges maps (id(w1) << 32 | id(w2)) to the id of the best bridge word from
+    //      w1 to w2 in graph, or to -1 if there is none, for some pairs of words w1, w2.
+    //   poemCount, wordCount, poemNanos, cacheHits and cacheMisses count the work
+    //      done by poem() so far, as reported by statistics().
     // Safety from rep exposure:
-    //   All the fields are final and private.
+    //   All the fields are private, and none of them is returned.
+    // Thread safety:
+    //   graph, bigrams and the entries of bridges are only modified by append()
+    //   and only while holding the write lock; every other method that reads
+    //   them holds the read lock, so each poem (and each batch of poems()) is
+    //   generated against one snapshot of the corpus. bridges is a concurrent
+    //   map, filled in by readers, and the counters are LongAdders.
     
     /**
      * Create a new poet with the graph from corpus (as described above).
+     * The corpus is streamed, so its size is not limited by memory.
      * 
      * @param corpus text file from which to derive the poet's affinity graph
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        StringBuilder input = new StringBuilder();
-        List<String> lines = Files.readAllLines(corpus.toPath());
-        for (String line : lines) {
-            input.append(line).append(" ");
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            bigrams = Bigrams.count(channel);
         }
-        String text = input.toString().trim();
-        String[] words = text.split("\\s+");
-
-        for (int i = 0; i < words.length - 1; i++) {
-            String w1 = words[i].toLowerCase();
-            String w2 = words[i + 1].toLowerCase();
-            graph.add(w1);
-            graph.add(w2);
-            int existingWeight = graph.targets(w1).getOrDefault(w2, 0);
-            graph.set(w1, w2, existingWeight + 1);
+        graph = bigrams.graph();
+        checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from a corpus read from a channel.
+     * The text is tokenized incrementally as it is read, with memory use
+     * independent of its length apart from the graph itself.
+     * 
+     * @param corpus UTF-8 text from which to derive the poet's affinity graph;
+     *               read to the end but not closed
+     * @throws IOException if the corpus cannot be read or is not valid UTF-8
+     */
+    public GraphPoet(ReadableByteChannel corpus) throws IOException {
+        bigrams = Bigrams.count(corpus);
+        graph = bigrams.graph();
+        checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * tokenizing and counting in parallel.
+     * The file is split at whitespace into chunks that are memory-mapped and
+     * counted independently by tasks in pool; the counts are then merged, with
+     * the adjacency across each chunk boundary added back, so the graph is the
+     * same as the one GraphPoet(corpus) builds.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param pool pool to count chunks in
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool) throws IOException {
+        this(corpus, pool, 0);
+    }
+    
+    /*
+     * As GraphPoet(corpus, pool), with chunks of about chunkBytes bytes,
+     * or a size chosen from the file size and parallelism if chunkBytes is 0.
+     */
+    GraphPoet(File corpus, ForkJoinPool pool, long chunkBytes) throws IOException {
+        bigrams = new Bigrams();
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (chunkBytes <= 0) {
+                chunkBytes = Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L) + 1);
+            }
+            chunkBytes = Math.min(chunkBytes, Integer.MAX_VALUE / 2); // one mapping per chunk
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            for (long nominal = chunkBytes; nominal < size; nominal += chunkBytes) {
+                long bound = nextWhitespace(channel, Math.max(nominal, bounds.get(bounds.size() - 1)));
+                if (bound < size && bound > bounds.get(bounds.size() - 1)) {
+                    bounds.add(bound);
+                }
+            }
+            bounds.add(size);
+            
+            List<Callable<Bigrams>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                long start = bounds.get(i);
+                long length = bounds.get(i + 1) - start;
+                tasks.add(() -> Bigrams.count(channel.map(FileChannel.MapMode.READ_ONLY, start, length)));
+            }
+            for (Future<Bigrams> future : pool.invokeAll(tasks)) {
+                bigrams.append(get(future));
+            }
         }
+        graph = bigrams.graph();
         checkRep();
     }
     
-    // checkRep
+    /*
+     * A poet with the given affinity graph, which must satisfy the rep invariant
+     * and is never modified; it is copied by the first append().
+     * The rep is not checked here: for a mapped model that would decode every
+     * label and row of the file, and MappedGraph has already checked its header.
+     */
+    private GraphPoet(IndexedGraph<String> graph) {
+        this.graph = graph;
+    }
+    
+    /**
+     * Add text to the corpus of this poet, as if it were another corpus whose
+     * adjacencies were counted and added to those of the corpus so far; no
+     * adjacency is added between the old corpus and text.
+     * 
+     * <p>Only the weights of the new adjacencies are updated, and only the
+     * remembered bridges that may have changed are forgotten: those from a
+     * word that text adds an adjacency from, and those to a word that text
+     * adds an adjacency to. Poems generated concurrently with this call use
+     * either the old corpus or the new one, never a mixture.
+     * A poet loaded from a model file copies the model into memory on its first
+     * append(); the file is not modified.
+     * 
+     * @param text words to add, delimited as in the corpus
+     */
+    public void append(String text) {
+        Bigrams added = new Bigrams();
+        WordScanner.scan(text, added::add);
+        if (added.counts.vertexCount() == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (bigrams == null) {
+                bigrams = Bigrams.copy(graph);
+                graph = bigrams.graph();
+                bridges.clear(); // ids may have changed
+            }
+            int[] ids = bigrams.merge(added);
+            Set<Integer> sources = new HashSet<>();
+            Set<Integer> targets = new HashSet<>();
+            for (int w1 : added.counts.vertices()) {
+                if (added.counts.outDegree(w1) > 0) {
+                    sources.add(ids[w1]);
+                }
+                if (added.counts.inDegree(w1) > 0) {
+                    targets.add(ids[w1]);
+                }
+            }
+            // the bridge from w1 to w2 depends only on edges from w1 and edges to w2
+            bridges.keySet().removeIf(key -> sources.contains((int) (key >>> 32))
+                                             || targets.contains((int) (long) key));
+            assert checkWords(sources) && checkWords(targets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Save this poet's affinity graph as a model file that load() can read back,
+     * replacing the file if it exists.
+     * The model stores each word once and the weighted adjacency as compact
+     * rows of word ids, in the format of graph.MappedGraph.
+     * 
+     * @param model file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path model) throws IOException {
+        lock.readLock().lock();
+        try {
+            MappedGraph.write(graph, model);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Load a poet from a model file written by save().
+     * The file is memory-mapped rather than read, so loading takes about the
+     * same time whatever the size of the corpus, and the poet behaves exactly
+     * like the one that was saved. The file must not be modified while the
+     * poet is in use.
+     * 
+     * @param model file to read
+     * @return a poet with the affinity graph saved in model
+     * @throws IOException if the file cannot be read or is not a model file
+     */
+    public static GraphPoet load(Path model) throws IOException {
+        return new GraphPoet(MappedGraph.open(model));
+    }
+    
+    /** Chunks smaller than this are not worth a task of their own. */
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    
+    /*
+     * Bigram counts of a sequence of words, lowercased and interned as they
+     * arrive so that each word is hashed once, and its first and last words
+     * (-1 if it has none) for stitching sequences together.
+     */
+    private static class Bigrams {
+        private final Interner<String> vocabulary = new Interner<>();
+        private final IntGraph counts = IntGraph.empty();
+        private int first = -1;
+        private int last = -1;
+        
+        static Bigrams count(ReadableByteChannel corpus) throws IOException {
+            Bigrams bigrams = new Bigrams();
+            WordScanner.scan(corpus, bigrams::add);
+            return bigrams;
+        }
+        
+        static Bigrams count(ByteBuffer chunk) throws IOException {
+            Bigrams bigrams = new Bigrams();
+            WordScanner.scan(chunk, bigrams::add);
+            return bigrams;
+        }
+        
+        // count the adjacency of the last word and word
+        void add(String word) {
+            follow(vocabulary.intern(word.toLowerCase()), 1);
+        }
+        
+        // count the adjacency of the last word and w2 weight more times, and make w2 the last word
+        private void follow(int w2, int weight) {
+            if (last < 0) {
+                first = w2;
+            } else {
+                counts.set(last, w2, counts.weight(last, w2) + weight);
+            }
+            last = w2;
+        }
+        
+        // add the counts of the words of next, as if they followed these words
+        void append(Bigrams next) {
+            if (next.first < 0) {
+                return;
+            }
+            int[] ids = merge(next);
+            follow(ids[next.first], 1); // stitch the boundary
+            last = ids[next.last];
+        }
+        
+        // add the counts of next, returning the id here of each id in next
+        int[] merge(Bigrams next) {
+            int[] ids = new int[next.vocabulary.size()];
+            for (int id = 0; id < ids.length; id++) {
+                ids[id] = vocabulary.intern(next.vocabulary.label(id));
+            }
+            for (int w1 : next.counts.vertices()) {
+                next.counts.forEachTarget(w1, (w2, weight) ->
+                        counts.set(ids[w1], ids[w2], counts.weight(ids[w1], ids[w2]) + weight));
+            }
+            return ids;
+        }
+        
+        // counts equal to the edges of graph, with no first or last word
+        static Bigrams copy(Graph<String> graph) {
+            Bigrams bigrams = new Bigrams();
+            for (String w1 : graph.vertexView()) {
+                int id1 = bigrams.vocabulary.intern(w1);
+                graph.forEachTarget(w1, (w2, weight) ->
+                        bigrams.counts.set(id1, bigrams.vocabulary.intern(w2), weight));
+            }
+            return bigrams;
+        }
+        
+        InternedGraph<String> graph() {
+            return new InternedGraph<>(vocabulary, counts);
+        }
+    }
+    
+    // the position of the first ASCII whitespace byte at or after position, or the
+    // channel size; such a byte is never inside a multi-byte UTF-8 character
+    private static long nextWhitespace(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (WordScanner.isWhitespace((char) buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+    }
+    
+    // the result of a finished chunk task, rethrowing its IOException
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new RuntimeException(ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading corpus");
+        }
+    }
+    
+    // checkRep, O(V + E) so it only runs when EXPENSIVE_CHECKS
     private void checkRep() {
-        for (String vertex : graph.vertices()) {
+        if (!EXPENSIVE_CHECKS) {
+            return;
+        }
+        for (String vertex : graph.vertexView()) {
             assert vertex.equals(vertex.toLowerCase());
             assert !vertex.contains(" ");
             assert !vertex.contains("\n");
-        }
-        for (String vertex1 : graph.vertices()) {
-            for (String vertex2 : graph.vertices()) {
-                if (graph.targets(vertex1).containsKey(vertex2)) {
-                    int weight = graph.targets(vertex1).get(vertex2);
-                    assert weight >= 1;
-                }
+            for (int weight : graph.targetView(vertex).values()) {
+                assert weight >= 1;
             }
         }
     }
     
+    // checkRep for just the words with the given ids and the edges from them,
+    // as changed by append(); always true, so it can be called in an assert
+    private boolean checkWords(Set<Integer> ids) {
+        for (int id : ids) {
+            String word = graph.label(id);
+            assert word.equals(word.toLowerCase());
+            assert !word.contains(" ");
+            assert !word.contains("\n");
+            graph.forEachTarget(id, (target, weight) -> {
+                assert weight >= 1;
+            });
+        }
+        return true;
+    }
+    
     /**
      * Generate a poem.
+     * Where several bridge words tie for the maximum weight, the
+     * alphabetically first one is used.
      * 
      * @param input string from which to create the poem
      * @return poem (as described above)
      */
     public String poem(String input) {
+        lock.readLock().lock();
+        try {
+            return compose(input);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // poem(input), requires the read lock to be held
+    private String compose(String input) {
+        long start = System.nanoTime();
         String[] words = input.split("\\s+");
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = graph.id(words[i].toLowerCase());
+        }
         StringBuilder result = new StringBuilder();
         result.append(words[0]);
         for (int i = 0; i < words.length - 1; i++) {
-            String w1 = words[i].toLowerCase();
-            String w2 = words[i + 1].toLowerCase();
-            String bestBridge = "";
-            int maxWeight = -1;
-
-            for (String b : graph.vertices()) {
-                if (graph.targets(w1).containsKey(b) && graph.targets(b).containsKey(w2)) {
-                    Integer w1b = graph.targets(w1).get(b);
-                    Integer bw2 = graph.targets(b).get(w2);
-                    int weight = w1b + bw2;
-                    if (weight > maxWeight) {
-                        maxWeight = weight;
-                        bestBridge = b;
+            int bridge = bridge(ids[i], ids[i + 1]);
+            if (bridge >= 0) {
+                result.append(" ").append(graph.label(bridge));
+            }
+            result.append(" ").append(words[i + 1]);
+        }
+        poemCount.increment();
+        wordCount.add(words.length);
+        poemNanos.add(System.nanoTime() - start);
+        return result.toString();
+    }
+    
+    /**
+     * Generate a poem with bridges of up to maxBridgeWords words.
+     * Between each pair of adjacent input words w1, w2 this inserts the middle
+     * words b1 ... bj of the maximum-weight path w1 -> b1 -> ... -> bj -> w2,
+     * where 1 <= j <= maxBridgeWords, the bi are distinct from each other
+     * (though, as in poem(input), any of them may be w1 or w2), and the weight
+     * of a path is the sum of the weights of its edges.
+     * Ties go to the path with fewer bridge words, then to the alphabetically
+     * first sequence of bridge words. If there is no such path, no bridge is
+     * inserted. With maxBridgeWords = 1, the poem is the same as poem(input).
+     * 
+     * <p>Paths are found by a best-first search with a fixed budget of steps
+     * and of edges scanned per pair of words, so its time does not grow with
+     * the size of the corpus beyond the edges of w1 and w2. On a large corpus
+     * a lighter path than the best may therefore be used, but never one
+     * lighter than the best one-word bridge.
+     * 
+     * @param input string from which to create the poem
+     * @param maxBridgeWords most words in each bridge, at least 1
+     * @return poem (as described above)
+     * @throws IllegalArgumentException if maxBridgeWords < 1
+     */
+    public String poem(String input, int maxBridgeWords) {
+        if (maxBridgeWords < 1) {
+            throw new IllegalArgumentException("maxBridgeWords must be at least 1");
+        }
+        if (maxBridgeWords == 1) {
+            return poem(input);
+        }
+        lock.readLock().lock();
+        try {
+            long start = System.nanoTime();
+            String[] words = input.split("\\s+");
+            StringBuilder result = new StringBuilder();
+            result.append(words[0]);
+            int previous = graph.id(words[0].toLowerCase());
+            for (int i = 1; i < words.length; i++) {
+                int next = graph.id(words[i].toLowerCase());
+                if (previous >= 0 && next >= 0) {
+                    for (int bridge : BridgeSearch.best(graph, previous, next, maxBridgeWords,
+                                                        BridgeSearch.MAX_EXPANSIONS)) {
+                        result.append(" ").append(graph.label(bridge));
                     }
                 }
+                result.append(" ").append(words[i]);
+                previous = next;
             }
-
-            if (!bestBridge.isEmpty()) {
-                result.append(" ").append(bestBridge);
+            poemCount.increment();
+            wordCount.add(words.length);
+            poemNanos.add(System.nanoTime() - start);
+            return result.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Generate poems for many inputs, in parallel.
+     * The poems are the same as calling poem() on each input in turn, and the
+     * bridge words found for one input are remembered for the others.
+     * All the poems are generated against the same corpus: append() waits
+     * until the batch is done.
+     * 
+     * @param inputs strings from which to create poems
+     * @param pool pool to generate the poems in
+     * @return the poem for each input, in the same order as inputs
+     */
+    public List<String> poems(List<String> inputs, ForkJoinPool pool) {
+        String[] poems = new String[inputs.size()];
+        lock.readLock().lock(); // held for the tasks, which must not lock again
+        try {
+            pool.invoke(new PoemTask(inputs, poems, 0, poems.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.asList(poems);
+    }
+    
+    /**
+     * Generate poems for a stream of inputs.
+     * The stream is processed lazily, and in parallel if inputs is parallel;
+     * see poems(List, ForkJoinPool). Unlike a batch, each poem is generated
+     * against the corpus as it is when that poem is made.
+     * 
+     * @param inputs strings from which to create poems
+     * @return stream of the poem for each input, in the same order as inputs
+     */
+    public Stream<String> poems(Stream<String> inputs) {
+        return inputs.map(this::poem);
+    }
+    
+    /**
+     * @return counts of the poems generated by this poet so far, including
+     *         those being generated concurrently with this call
+     */
+    public PoetStatistics statistics() {
+        return new PoetStatistics(poemCount.sum(), wordCount.sum(), poemNanos.sum(),
+                cacheHits.sum(), cacheMisses.sum());
+    }
+    
+    /* Generates the poems for inputs[from..to), halving ranges above POEMS_PER_TASK. */
+    private class PoemTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<String> inputs;
+        private final String[] poems;
+        private final int from;
+        private final int to;
+        
+        PoemTask(List<String> inputs, String[] poems, int from, int to) {
+            this.inputs = inputs;
+            this.poems = poems;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override protected void compute() {
+            if (to - from <= POEMS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    poems[i] = compose(inputs.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PoemTask(inputs, poems, from, middle),
+                          new PoemTask(inputs, poems, middle, to));
             }
-            result.append(" ").append(words[i + 1]);
         }
-        return result.toString();
+    }
+    
+    /** Inputs too few to be worth splitting further between tasks. */
+    private static final int POEMS_PER_TASK = 16;
+    
+    /*
+     * The id of the best bridge from w1 to w2, or -1 if there is none (or w1 or
+     * w2 is -1, a word not in the corpus), remembered in bridges until it holds
+     * MAX_CACHED_BRIDGES pairs.
+     */
+    private int bridge(int w1, int w2) {
+        if (w1 < 0 || w2 < 0) {
+            return -1;
+        }
+        Long key = (long) w1 << 32 | w2;
+        Integer bridge = bridges.get(key);
+        if (bridge != null) {
+            cacheHits.increment();
+            return bridge;
+        }
+        cacheMisses.increment();
+        int found = findBridge(w1, w2);
+        if (bridges.size() < MAX_CACHED_BRIDGES) {
+            bridges.put(key, found);
+        }
+        return found;
+    }
+    
+    /*
+     * The bridges from w1 to w2 are the middles of the two-edge paths from w1
+     * to w2, which graph finds without hashing any words; labels are only
+     * compared to break ties.
+     */
+    private int findBridge(int w1, int w2) {
+        int[] best = { -1, 0 }; // id and weight
+        graph.forEachTwoEdgePath(w1, w2, (middle, weight) -> {
+            if (weight > best[1]
+                    || (weight == best[1] && graph.label(middle).compareTo(graph.label(best[0])) < 0)) {
+                best[0] = middle;
+                best[1] = weight;
+            }
+        });
+        return best[0];
     }
     
     // toString()
     public String toString() {
-        return graph.toString();
+        lock.readLock().lock();
+        try {
+            return graph.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
 }
@@ -0,0 +1,113 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * A mutable map from int to long using open addressing with linear probing,
+ * so keys and values are never boxed.
+ * This class is internal to BridgeSearch, which keeps one per walk length.
+ */
+class IntLongHashMap {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size = 0;
+
+    // Abstraction function:
+    //      represents the map { keys[i] -> values[i] | used[i] }.
+    // Representation invariant:
+    //      keys, values and used have the same power-of-two length;
+    //      size == number of used slots, and 2 * size <= length;
+    //      keys of used slots are distinct, and every used slot is reachable
+    //        from the home slot of its key without crossing an unused slot.
+    // Safety from rep exposure:
+    //      All fields are private; arrays are never returned.
+
+    /** Make an empty map. */
+    IntLongHashMap() {
+        keys = new int[MIN_CAPACITY];
+        values = new long[MIN_CAPACITY];
+        used = new boolean[MIN_CAPACITY];
+    }
+
+    /** @return number of keys in this map */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key a key
+     * @param missing value to return if key is not in this map
+     * @return the value for key, or missing
+     */
+    long get(int key, long missing) {
+        int mask = keys.length - 1;
+        for (int slot = home(key, mask); used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Map key to value if key is not in this map or its value is smaller.
+     * @param key a key
+     * @param value a candidate value for key
+     */
+    void putMax(int key, long value) {
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = Math.max(values[slot], value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (2 * size > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** @return a new array of the keys in this map, in no particular order */
+    int[] keys() {
+        int[] result = new int[size];
+        int k = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                result[k++] = keys[slot];
+            }
+        }
+        return result;
+    }
+
+    private static int home(int key, int mask) {
+        int h = key * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                putMax(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+}
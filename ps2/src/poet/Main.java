@@ -5,6 +5,8 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Example program using GraphPoet.
@@ -16,11 +18,21 @@ public class Main {
     /**
      * Generate example poetry.
      * 
-     * @param args unused
-     * @throws IOException if a poet corpus file cannot be found or read
+     * @param args optionally, a model file: the poet is loaded from it if it
+     *             exists, or else trained from the corpus and saved to it, so
+     *             later runs skip reading the corpus
+     * @throws IOException if a poet corpus or model file cannot be read or written
      */
     public static void main(String[] args) throws IOException {
-        final GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        final GraphPoet nimoy;
+        if (args.length > 0 && Files.exists(Paths.get(args[0]))) {
+            nimoy = GraphPoet.load(Paths.get(args[0]));
+        } else {
+            nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+            if (args.length > 0) {
+                nimoy.save(Paths.get(args[0]));
+            }
+        }
         final String input = "Test the system.";
         System.out.println(input + "\n>>>\n" + nimoy.poem(input));
     }
@@ -0,0 +1,88 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Locale;
+
+/**
+ * An immutable snapshot of the work a GraphPoet has done generating poems:
+ * how many poems and input words, the time spent, and how often a bridge word
+ * was found in its cache of word pairs rather than searched for.
+ */
+public final class PoetStatistics {
+
+    private final long poems;
+    private final long words;
+    private final long nanos;
+    private final long cacheHits;
+    private final long cacheMisses;
+
+    // Abstraction function:
+    //      represents poems poems made from words input words in nanos nanoseconds
+    //      of generation time summed over all threads, with cacheHits bridge
+    //      lookups answered from the cache and cacheMisses searched for
+    // Representation invariant:
+    //      all fields >= 0
+    // Safety from rep exposure:
+    //      All fields are private, final and immutable.
+
+    PoetStatistics(long poems, long words, long nanos, long cacheHits, long cacheMisses) {
+        this.poems = poems;
+        this.words = words;
+        this.nanos = nanos;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert poems >= 0 && words >= 0 && nanos >= 0 && cacheHits >= 0 && cacheMisses >= 0;
+    }
+
+    /** @return number of poems generated */
+    public long getPoems() {
+        return poems;
+    }
+
+    /** @return number of words in the inputs of those poems */
+    public long getWords() {
+        return words;
+    }
+
+    /**
+     * @return nanoseconds spent generating those poems, summed over all threads,
+     *         so with several threads this can exceed the elapsed time
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /** @return number of adjacent input word pairs, both in the corpus, whose bridge was cached */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /** @return number of adjacent input word pairs, both in the corpus, whose bridge was searched for */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /** @return fraction of bridge lookups answered from the cache, or 0 if there were none */
+    public double getCacheHitRate() {
+        long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
+    }
+
+    /** @return poems generated per second of generation time (per thread), or 0 if none */
+    public double getPoemsPerSecond() {
+        return nanos == 0 ? 0 : poems * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d poems, %d words, %.3f ms, %d cache hits, %d cache misses",
+                poems, words, nanos / 1e6, cacheHits, cacheMisses);
+    }
+
+}
@@ -0,0 +1,171 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Splits UTF-8 text into words incrementally, using a fixed amount of memory
+ * beyond the longest word.
+ *
+ * <p>Words are maximal runs of non-whitespace characters, where whitespace is
+ * space, tab, newline, carriage return, form feed or vertical tab (as matched
+ * by the regular expression \s). Words are passed on exactly as they appear
+ * in the text, in order.
+ */
+final class WordScanner {
+
+    /** Bytes read from a channel at a time. */
+    static final int BUFFER_BYTES = 1 << 16;
+
+    private final Consumer<String> sink;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final CharBuffer chars;
+    private final StringBuilder word = new StringBuilder();
+
+    // Abstraction function:
+    //      represents a scan that has passed every complete word seen so far to
+    //      sink; word holds the characters of a word that may continue in the
+    //      next input, and decoder holds the bytes of a partial UTF-8 sequence.
+    // Representation invariant:
+    //      word contains no whitespace.
+    // Safety from rep exposure:
+    //      All fields are private and final; only Strings are passed to sink.
+
+    /**
+     * Make a scanner.
+     * @param sink receives each word
+     * @param bufferChars number of characters decoded at a time, at least 2
+     */
+    WordScanner(Consumer<String> sink, int bufferChars) {
+        this.sink = sink;
+        this.chars = CharBuffer.allocate(bufferChars);
+    }
+
+    /**
+     * Pass every word read from a channel to sink, until the end of the channel.
+     * @param channel UTF-8 text; read to the end but not closed
+     * @param sink receives each word
+     * @throws IOException if the channel cannot be read or is not valid UTF-8
+     */
+    static void scan(ReadableByteChannel channel, Consumer<String> sink) throws IOException {
+        scan(channel, sink, BUFFER_BYTES);
+    }
+
+    /**
+     * Pass every word read from a channel to sink, until the end of the channel.
+     * @param channel UTF-8 text; read to the end but not closed
+     * @param sink receives each word
+     * @param bufferBytes bytes read at a time, at least 4
+     * @throws IOException if the channel cannot be read or is not valid UTF-8
+     */
+    static void scan(ReadableByteChannel channel, Consumer<String> sink, int bufferBytes) throws IOException {
+        WordScanner scanner = new WordScanner(sink, bufferBytes);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(bufferBytes);
+        while (channel.read(bytes) >= 0) {
+            bytes.flip();
+            scanner.feed(bytes, false);
+            bytes.compact();
+        }
+        bytes.flip();
+        scanner.feed(bytes, true);
+    }
+
+    /**
+     * Pass every word in a buffer to sink.
+     * @param bytes UTF-8 text between its position and limit; its position is
+     *              moved to the limit
+     * @param sink receives each word
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    static void scan(ByteBuffer bytes, Consumer<String> sink) throws CharacterCodingException {
+        new WordScanner(sink, BUFFER_BYTES).feed(bytes, true);
+    }
+
+    /**
+     * Pass every word in a string to sink.
+     * @param text text to split into words
+     * @param sink receives each word
+     */
+    static void scan(CharSequence text, Consumer<String> sink) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || isWhitespace(text.charAt(i))) {
+                if (start >= 0) {
+                    sink.accept(text.subSequence(start, i).toString());
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Scan more input.
+     * @param bytes next bytes of the text, between position and limit; bytes of
+     *              an incomplete UTF-8 sequence at the end are left unread
+     *              unless this is the end of the text
+     * @param endOfText true iff no more input follows
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    void feed(ByteBuffer bytes, boolean endOfText) throws CharacterCodingException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfText);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        if (endOfText) {
+            while (decoder.flush(chars).isOverflow()) {
+                drain();
+            }
+            drain();
+            endWord();
+            decoder.reset();
+        }
+    }
+
+    // split the decoded characters into words
+    private void drain() {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (isWhitespace(c)) {
+                endWord();
+            } else {
+                word.append(c);
+            }
+        }
+        chars.clear();
+    }
+
+    private void endWord() {
+        if (word.length() > 0) {
+            sink.accept(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * @param c a character
+     * @return true iff c is whitespace as matched by the regular expression \s
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+}
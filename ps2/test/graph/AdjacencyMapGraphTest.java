@@ -0,0 +1,102 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdjacencyMapGraph.
+ * <p>
+ * This class runs the GraphInstanceTest tests against AdjacencyMapGraph, as
+ * well as tests for that particular implementation.
+ * <p>
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class AdjacencyMapGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an AdjacencyMapGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new AdjacencyMapGraph<>();
+    }
+    
+    /*
+     * Testing AdjacencyMapGraph...
+     */
+    
+    // Testing strategy for AdjacencyMapGraph
+    //   toString(): empty graph, vertex without edges, several edges
+    //   remove(): vertex with incoming, outgoing and self-loop edges leaves no
+    //     dangling edges in either direction
+    //   set(): negative weight
+    //   aggregates: remove() of a vertex with a self-loop and edges both ways
+    //     after topEdges()/topTargets() have built their indexes
+    
+    @Test
+    public void testToStringEmptyGraph() {
+        assertEquals("", new AdjacencyMapGraph<String>().toString());
+    }
+    
+    @Test
+    public void testToStringVertexWithoutEdges() {
+        Graph<String> graph = new AdjacencyMapGraph<>();
+        graph.add("A");
+        assertEquals("", graph.toString());
+    }
+    
+    @Test
+    public void testToStringMultipleEdges() {
+        Graph<String> graph = new AdjacencyMapGraph<>();
+        graph.set("A", "B", 5);
+        graph.set("B", "C", 2);
+        String result = graph.toString();
+        assertTrue(result.contains("(A) --[5]--> (B)\n"));
+        assertTrue(result.contains("(B) --[2]--> (C)\n"));
+    }
+    
+    @Test
+    public void testRemoveLeavesNoDanglingEdges() {
+        Graph<String> graph = new AdjacencyMapGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("c", "a", 2);
+        graph.set("a", "a", 3);
+        graph.set("b", "c", 4);
+        assertTrue(graph.remove("a"));
+        assertTrue(graph.targets("c").isEmpty());
+        assertTrue(graph.sources("b").isEmpty());
+        assertEquals(Integer.valueOf(4), graph.targets("b").get("c"));
+        assertEquals(0, graph.set("c", "a", 0));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNegativeWeight() {
+        new AdjacencyMapGraph<String>().set("a", "b", -1);
+    }
+    
+    @Test
+    public void testAggregatesAfterRemove() {
+        Graph<String> graph = new AdjacencyMapGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("c", "a", 2);
+        graph.set("a", "a", 3);
+        graph.set("b", "c", 4);
+        graph.set("c", "b", 6);
+        assertEquals(5, graph.topEdges(10).size());
+        assertEquals(2, graph.topTargets("c", 10).size());
+        assertTrue(graph.remove("a"));
+        assertEquals(2, graph.edgeCount());
+        assertEquals(10, graph.totalWeight());
+        assertEquals(Arrays.asList(new WeightedEdge<>("c", "b", 6), new WeightedEdge<>("b", "c", 4)),
+                graph.topEdges(10));
+        assertEquals(Arrays.asList(new WeightedEdge<>("c", "b", 6)), graph.topTargets("c", 10));
+        assertEquals(Collections.emptyList(), graph.topTargets("a", 10));
+    }
+    
+}
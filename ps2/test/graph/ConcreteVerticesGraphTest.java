@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -88,6 +89,8 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     //      Test removing an edge by setting its weight to zero.
     //      Test getting all targets and edge weights.
     //      Test the string representation with no edges and with multiple edges.
+    //      Test recording, updating and removing incoming edges with setSource(),
+    //      independently of the outgoing edges.
 
     @Test
     public void testConstructorAndGetLabel() {
@@ -156,4 +159,17 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertTrue(s.contains("(A) --[3]--> (B)\n"));
         assertTrue(s.contains("(A) --[6]--> (C)\n"));
     }
+
+    @Test
+    public void testSetSource() {
+        Vertex<String> v = new Vertex<>("A");
+        assertEquals(0, v.setSource("B", 4));
+        assertEquals(4, v.setSource("B", 2));
+        assertEquals(2, v.getSourceWeight("B"));
+        assertEquals(Collections.singletonMap("B", 2), v.getSourcesView());
+        assertTrue(v.getEdges().isEmpty());
+        assertEquals(2, v.setSource("B", 0));
+        assertEquals(0, v.getSourceWeight("B"));
+        assertTrue(v.getSourcesView().isEmpty());
+    }
 }
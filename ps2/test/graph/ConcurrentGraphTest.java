@@ -0,0 +1,91 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ * <p>
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as tests for that particular implementation.
+ * <p>
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+    
+    /*
+     * Testing ConcurrentGraph...
+     */
+    
+    // Testing strategy for ConcurrentGraph
+    //   addWeight() from many threads on the same and different edges: no lost updates,
+    //     sources() and targets() agree afterwards
+    //   add() and remove() racing with addWeight() leave no dangling edges
+    
+    private static void runThreads(int count, Runnable body) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            threads.add(new Thread(body));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+    
+    @Test(timeout = 20000)
+    public void testConcurrentAddWeight() throws InterruptedException {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        runThreads(8, () -> {
+            for (int i = 0; i < 5000; i++) {
+                graph.addWeight("w" + (i % 10), "w" + ((i + 1) % 10), 1);
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            String source = "w" + i;
+            String target = "w" + ((i + 1) % 10);
+            assertEquals(Integer.valueOf(8 * 500), graph.targets(source).get(target));
+            assertEquals(Integer.valueOf(8 * 500), graph.sources(target).get(source));
+        }
+    }
+    
+    @Test(timeout = 20000)
+    public void testConcurrentRemove() throws InterruptedException {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        runThreads(4, () -> {
+            for (int i = 0; i < 2000; i++) {
+                graph.addWeight("hub", "v" + (i % 20), 1);
+                graph.addWeight("v" + (i % 20), "hub", 1);
+                if (i % 7 == 0) {
+                    graph.remove("v" + (i % 20));
+                }
+            }
+        });
+        for (String vertex : graph.vertices()) {
+            for (String target : graph.targets(vertex).keySet()) {
+                assertTrue(graph.vertices().contains(target));
+                assertEquals(graph.targets(vertex).get(target), graph.sources(target).get(vertex));
+            }
+            for (String source : graph.sources(vertex).keySet()) {
+                assertTrue(graph.vertices().contains(source));
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph and Graph.freeze().
+ */
+public class FrozenGraphTest {
+    
+    // Testing strategy
+    //   freeze(): empty graph, isolated vertex, self-loop, multiple edges;
+    //     later changes to the original are not visible; freezing a frozen graph
+    //   observers: vertices(), sources(), targets() match the original, missing label
+    //   indexed access: id/label round trip, degrees, neighbors in id order, weight()
+    //   mutators: add(), set(), remove() throw
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "a", 2);
+        graph.set("b", "b", 5);
+        graph.add("d");
+        return graph;
+    }
+    
+    @Test
+    public void testFreezeEmpty() {
+        FrozenGraph<String> frozen = Graph.freeze(Graph.empty());
+        assertEquals(Collections.emptySet(), frozen.vertices());
+        assertEquals(0, frozen.vertexCount());
+        assertEquals(0, frozen.edgeCount());
+        assertEquals(-1, frozen.id("a"));
+    }
+    
+    @Test
+    public void testObserversMatchOriginal() {
+        Graph<String> graph = sample();
+        FrozenGraph<String> frozen = Graph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertices());
+        for (String v : graph.vertices()) {
+            assertEquals(graph.targets(v), frozen.targets(v));
+            assertEquals(graph.sources(v), frozen.sources(v));
+        }
+        assertTrue(frozen.targets("x").isEmpty());
+        assertTrue(frozen.sources("x").isEmpty());
+        assertEquals(4, frozen.edgeCount());
+    }
+    
+    @Test
+    public void testSnapshotIndependentOfOriginal() {
+        Graph<String> graph = sample();
+        FrozenGraph<String> frozen = Graph.freeze(graph);
+        graph.set("a", "b", 0);
+        graph.remove("c");
+        assertEquals(Integer.valueOf(3), frozen.targets("a").get("b"));
+        assertTrue(frozen.vertices().contains("c"));
+        assertSame(frozen, Graph.freeze(frozen));
+    }
+    
+    @Test
+    public void testIndexedAccess() {
+        FrozenGraph<String> frozen = Graph.freeze(sample());
+        int a = frozen.id("a");
+        assertEquals("a", frozen.label(a));
+        assertEquals(2, frozen.outDegree(a));
+        assertEquals(1, frozen.inDegree(a));
+        assertTrue(frozen.target(a, 0) < frozen.target(a, 1));
+        Map<String, Integer> targets = new HashMap<>();
+        for (int k = 0; k < frozen.outDegree(a); k++) {
+            targets.put(frozen.label(frozen.target(a, k)), frozen.targetWeight(a, k));
+        }
+        assertEquals(frozen.targets("a"), targets);
+        assertEquals("c", frozen.label(frozen.source(a, 0)));
+        assertEquals(2, frozen.sourceWeight(a, 0));
+        assertEquals(5, frozen.weight(frozen.id("b"), frozen.id("b")));
+        assertEquals(0, frozen.weight(frozen.id("b"), a));
+        assertEquals(0, frozen.outDegree(frozen.id("d")));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAddUnsupported() {
+        Graph.freeze(sample()).add("e");
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetUnsupported() {
+        Graph.freeze(sample()).set("a", "b", 1);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveUnsupported() {
+        Graph.freeze(sample()).remove("a");
+    }
+    
+}
@@ -5,7 +5,12 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -24,9 +29,20 @@ public abstract class GraphInstanceTest {
     //  set(): add edge, update edge weight, remove edge (set the weight zero),
     //      self-loop
     //  remove(): remove existing vertex (with/without edges), remove non-existing
-    //      vertex
+    //      vertex; vertex with several incoming and outgoing edges and a self-loop
+    //      leaves no dangling edges; re-adding a removed vertex; aggregates after remove
     //  vertices(): empty, after add, after remove
     //  sources()/targets(): after add, remove, query for non-existent vertex
+    //  vertexView()/sourceView()/targetView(): equal to the copying observers,
+    //      unmodifiable, non-existent vertex
+    //  forEachSource()/forEachTarget(): visit every edge once, non-existent vertex
+    //  addWeight(): new edge, existing edge, down to zero, below zero
+    //  setAll(): empty batch, new edges, update, removal, self-loop, same edge
+    //      several times in one batch, edges already in the graph; negative weight
+    //  targetCount()/sourceCount()/edgeCount()/totalWeight(): empty graph, after
+    //      add, update, remove edge, remove self-loop; missing vertex
+    //  topEdges()/topTargets(): k = 0, k < edges, k > edges, after updates and
+    //      removals made after an earlier query; missing vertex; negative k
     
     /**
      * Overridden by implementation-specific test classes.
@@ -113,4 +129,189 @@ public abstract class GraphInstanceTest {
         assertEquals(Integer.valueOf(9), g.targets("a").get("a"));
     }
     
+    @Test
+    public void testViewsMatchObservers() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 3);
+        g.set("c", "b", 7);
+        g.set("b", "b", 1);
+        g.add("d");
+        assertEquals(g.vertices(), g.vertexView());
+        for (String v : g.vertices()) {
+            assertEquals(g.sources(v), g.sourceView(v));
+            assertEquals(g.targets(v), g.targetView(v));
+        }
+        assertTrue(g.sourceView("x").isEmpty());
+        assertTrue(g.targetView("x").isEmpty());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testVertexViewUnmodifiable() {
+        Graph<String> g = emptyInstance();
+        g.add("a");
+        g.vertexView().remove("a");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testTargetViewUnmodifiable() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 1);
+        g.targetView("a").put("c", 2);
+    }
+
+    @Test
+    public void testForEachSourceAndTarget() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 3);
+        g.set("a", "c", 4);
+        g.set("d", "c", 5);
+        Map<String, Integer> targets = new HashMap<>();
+        g.forEachTarget("a", (v, w) -> assertNull(targets.put(v, w)));
+        assertEquals(g.targets("a"), targets);
+        Map<String, Integer> sources = new HashMap<>();
+        g.forEachSource("c", (v, w) -> assertNull(sources.put(v, w)));
+        assertEquals(g.sources("c"), sources);
+        g.forEachTarget("x", (v, w) -> fail("no such vertex"));
+        g.forEachSource("x", (v, w) -> fail("no such vertex"));
+    }
+    
+    @Test
+    public void testAddWeight() {
+        Graph<String> g = emptyInstance();
+        assertEquals(2, g.addWeight("a", "b", 2));
+        assertEquals(Integer.valueOf(2), g.targets("a").get("b"));
+        assertEquals(5, g.addWeight("a", "b", 3));
+        assertEquals(0, g.addWeight("a", "b", -5));
+        assertFalse(g.targets("a").containsKey("b"));
+        assertTrue(g.vertices().contains("b"));
+        assertEquals(0, g.addWeight("x", "y", 0));
+        assertFalse(g.vertices().contains("x"));
+        try {
+            g.addWeight("a", "c", -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            assertFalse(g.vertices().contains("c"));
+        }
+    }
+    
+    @Test
+    public void testSetAll() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 1);
+        g.set("c", "a", 4);
+        g.setAll(Collections.<WeightedEdge<String>>emptyList());
+        g.setAll(Arrays.asList(
+                new WeightedEdge<>("a", "b", 2),
+                new WeightedEdge<>("b", "c", 3),
+                new WeightedEdge<>("c", "a", 0),
+                new WeightedEdge<>("d", "d", 5),
+                new WeightedEdge<>("b", "c", 0),
+                new WeightedEdge<>("b", "c", 6),
+                new WeightedEdge<>("x", "y", 0)));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), g.vertices());
+        assertEquals(Collections.singletonMap("b", 2), g.targets("a"));
+        assertEquals(Collections.singletonMap("c", 6), g.targets("b"));
+        assertEquals(Collections.emptyMap(), g.targets("c"));
+        assertEquals(Collections.singletonMap("d", 5), g.sources("d"));
+    }
+    
+    @Test
+    public void testSetAllNegativeWeight() {
+        Graph<String> g = emptyInstance();
+        try {
+            g.setAll(Arrays.asList(
+                    new WeightedEdge<>("a", "b", 2),
+                    new WeightedEdge<>("b", "c", -1),
+                    new WeightedEdge<>("c", "d", 1)));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            assertEquals(new HashSet<>(Arrays.asList("a", "b")), g.vertices());
+            assertEquals(Collections.singletonMap("b", 2), g.targets("a"));
+        }
+    }
+    
+    @Test
+    public void testCountsAndTotalWeight() {
+        Graph<String> g = emptyInstance();
+        assertEquals(0, g.edgeCount());
+        assertEquals(0, g.totalWeight());
+        g.add("x");
+        g.set("a", "b", 2);
+        g.set("a", "c", 3);
+        g.set("c", "c", 4);
+        g.set("b", "c", 1);
+        assertEquals(4, g.edgeCount());
+        assertEquals(10, g.totalWeight());
+        assertEquals(2, g.targetCount("a"));
+        assertEquals(3, g.sourceCount("c"));
+        assertEquals(0, g.targetCount("x"));
+        assertEquals(0, g.sourceCount("missing"));
+        g.set("a", "b", 7);
+        g.set("b", "c", 0);
+        assertEquals(3, g.edgeCount());
+        assertEquals(14, g.totalWeight());
+        g.set("a", "c", 0);
+        g.set("c", "c", 0);
+        assertEquals(1, g.edgeCount());
+        assertEquals(7, g.totalWeight());
+        assertEquals(1, g.targetCount("a"));
+    }
+    
+    @Test
+    public void testTopEdgesAndTargets() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 5);
+        g.set("a", "c", 9);
+        g.set("a", "d", 1);
+        g.set("b", "a", 7);
+        assertEquals(Collections.emptyList(), g.topEdges(0));
+        assertEquals(Arrays.asList(new WeightedEdge<>("a", "c", 9), new WeightedEdge<>("b", "a", 7)),
+                g.topEdges(2));
+        assertEquals(4, g.topEdges(10).size());
+        assertEquals(Arrays.asList(new WeightedEdge<>("a", "c", 9), new WeightedEdge<>("a", "b", 5)),
+                g.topTargets("a", 2));
+        assertEquals(Collections.emptyList(), g.topTargets("missing", 3));
+        
+        g.set("a", "d", 20);
+        g.set("a", "c", 0);
+        g.set("a", "b", 0);
+        g.set("b", "a", 0);
+        List<WeightedEdge<String>> top = g.topEdges(10);
+        assertEquals(Arrays.asList(new WeightedEdge<>("a", "d", 20)), top);
+        assertEquals(Arrays.asList(new WeightedEdge<>("a", "d", 20)), g.topTargets("a", 3));
+        try {
+            g.topEdges(-1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testRemoveVertexWithManyEdges() {
+        Graph<String> g = emptyInstance();
+        g.set("a", "b", 1);
+        g.set("a", "c", 2);
+        g.set("d", "a", 3);
+        g.set("e", "a", 4);
+        g.set("a", "a", 5);
+        g.set("b", "c", 6);
+        assertTrue(g.remove("a"));
+        assertEquals(new HashSet<>(Arrays.asList("b", "c", "d", "e")), g.vertices());
+        for (String vertex : g.vertices()) {
+            assertFalse(g.targets(vertex).containsKey("a"));
+            assertFalse(g.sources(vertex).containsKey("a"));
+        }
+        assertEquals(Collections.singletonMap("b", 6), g.sources("c"));
+        assertTrue(g.targets("d").isEmpty());
+        assertTrue(g.sources("a").isEmpty());
+        assertEquals(1, g.edgeCount());
+        assertEquals(6, g.totalWeight());
+        
+        assertTrue(g.add("a"));
+        assertTrue(g.targets("a").isEmpty());
+        assertEquals(0, g.set("d", "a", 7));
+        assertEquals(Collections.singletonMap("d", 7), g.sources("a"));
+    }
+    
 }
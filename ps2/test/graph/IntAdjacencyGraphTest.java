@@ -0,0 +1,123 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntGraph, using IntAdjacencyGraph, and for IntIntHashMap.
+ */
+public class IntAdjacencyGraphTest {
+    
+    // Testing strategy
+    //   add(): new vertex, duplicate, negative and zero labels
+    //   set(): add, update, remove (weight 0), self-loop, non-existent vertices, negative weight
+    //   remove(): vertex with in/out/self-loop edges, non-existent vertex, slot reuse
+    //   observers: vertices(), weight(), degrees, forEachTarget()/forEachSource()
+    //   IntIntHashMap: put/get/remove against HashMap under random operations (resizes, collisions)
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testAdd() {
+        IntGraph graph = IntGraph.empty();
+        assertTrue(graph.add(0));
+        assertTrue(graph.add(-7));
+        assertFalse(graph.add(0));
+        assertEquals(2, graph.vertexCount());
+        int[] vertices = graph.vertices();
+        Arrays.sort(vertices);
+        assertArrayEquals(new int[] { -7, 0 }, vertices);
+    }
+    
+    @Test
+    public void testSet() {
+        IntGraph graph = IntGraph.empty();
+        assertEquals(0, graph.set(1, 2, 5));
+        assertTrue(graph.contains(1) && graph.contains(2));
+        assertEquals(5, graph.set(1, 2, 10));
+        assertEquals(10, graph.weight(1, 2));
+        assertEquals(0, graph.set(3, 4, 0));
+        assertFalse(graph.contains(3));
+        assertEquals(10, graph.set(1, 2, 0));
+        assertEquals(0, graph.weight(1, 2));
+        assertEquals(0, graph.inDegree(2));
+        assertEquals(0, graph.set(5, 5, 9));
+        assertEquals(9, graph.weight(5, 5));
+        assertEquals(1, graph.inDegree(5));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetNegativeWeight() {
+        IntGraph.empty().set(1, 2, -1);
+    }
+    
+    @Test
+    public void testRemove() {
+        IntGraph graph = IntGraph.empty();
+        graph.set(1, 2, 1);
+        graph.set(3, 1, 2);
+        graph.set(1, 1, 3);
+        graph.set(2, 3, 4);
+        assertTrue(graph.remove(1));
+        assertFalse(graph.remove(1));
+        assertEquals(0, graph.outDegree(3));
+        assertEquals(0, graph.inDegree(2));
+        assertEquals(4, graph.weight(2, 3));
+        // the freed slot is reused without stale edges
+        graph.add(8);
+        assertEquals(0, graph.outDegree(8));
+        assertEquals(0, graph.inDegree(8));
+    }
+    
+    @Test
+    public void testForEach() {
+        IntGraph graph = IntGraph.empty();
+        graph.set(1, 2, 3);
+        graph.set(1, 4, 5);
+        graph.set(6, 4, 7);
+        Map<Integer, Integer> targets = new HashMap<>();
+        graph.forEachTarget(1, targets::put);
+        assertEquals(2, targets.size());
+        assertEquals(Integer.valueOf(3), targets.get(2));
+        assertEquals(Integer.valueOf(5), targets.get(4));
+        Map<Integer, Integer> sources = new HashMap<>();
+        graph.forEachSource(4, sources::put);
+        assertEquals(2, sources.size());
+        assertEquals(Integer.valueOf(5), sources.get(1));
+        assertEquals(Integer.valueOf(7), sources.get(6));
+        graph.forEachTarget(99, (v, w) -> fail("no such vertex"));
+    }
+    
+    @Test
+    public void testIntIntHashMapAgainstHashMap() {
+        Random random = new Random(6005);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -250; key < 250; key++) {
+            assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+    }
+    
+}
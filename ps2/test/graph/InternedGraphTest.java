@@ -0,0 +1,105 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for InternedGraph.
+ * <p>
+ * This class runs the GraphInstanceTest tests against InternedGraph, as
+ * well as tests for that particular implementation.
+ * <p>
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class InternedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an InternedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new InternedGraph<>();
+    }
+    
+    /*
+     * Testing InternedGraph...
+     */
+    
+    // Testing strategy for InternedGraph
+    //   id()/label(): added label, unknown label
+    //   view of an IntGraph: changes through either side are visible in the other
+    //   observers by id: weight(), degrees, forEachTarget/Source(),
+    //     forEachTwoEdgePath() scanning either side
+    //   toString(): one edge
+    
+    @Test
+    public void testIdAndLabel() {
+        InternedGraph<String> graph = new InternedGraph<>();
+        graph.set("a", "b", 1);
+        assertEquals("a", graph.label(graph.id("a")));
+        assertNotEquals(graph.id("a"), graph.id("b"));
+        assertEquals(-1, graph.id("c"));
+    }
+    
+    @Test
+    public void testSharedIntGraph() {
+        Interner<String> interner = new Interner<>();
+        IntGraph ints = IntGraph.empty();
+        InternedGraph<String> graph = new InternedGraph<>(interner, ints);
+        graph.set("a", "b", 4);
+        assertEquals(4, ints.weight(interner.id("a"), interner.id("b")));
+        ints.set(interner.intern("b"), interner.intern("c"), 2);
+        assertEquals(Integer.valueOf(2), graph.targets("b").get("c"));
+        assertTrue(graph.vertices().contains("c"));
+    }
+    
+    @Test
+    public void testObserversById() {
+        InternedGraph<String> graph = new InternedGraph<>();
+        graph.set("a", "b", 2);
+        graph.set("b", "c", 3);
+        graph.set("a", "d", 1);
+        graph.set("d", "c", 1);
+        graph.set("e", "c", 7);
+        int a = graph.id("a");
+        int b = graph.id("b");
+        int c = graph.id("c");
+        assertEquals(2, graph.weight(a, b));
+        assertEquals(0, graph.weight(b, a));
+        assertEquals(2, graph.outDegree(a));
+        assertEquals(3, graph.inDegree(c));
+        Map<String, Integer> targets = new HashMap<>();
+        graph.forEachTarget(a, (target, weight) -> targets.put(graph.label(target), weight));
+        assertEquals(graph.targets("a"), targets);
+        Map<String, Integer> sources = new HashMap<>();
+        graph.forEachSource(c, (source, weight) -> sources.put(graph.label(source), weight));
+        assertEquals(graph.sources("c"), sources);
+        
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("b", 5);
+        expected.put("d", 2);
+        Map<String, Integer> paths = new HashMap<>(); // scans the targets of a
+        graph.forEachTwoEdgePath(a, c, (middle, weight) -> paths.put(graph.label(middle), weight));
+        assertEquals(expected, paths);
+        graph.set("a", "e", 1);
+        graph.set("a", "f", 1);
+        expected.put("e", 8);
+        paths.clear(); // scans the sources of c
+        graph.forEachTwoEdgePath(a, c, (middle, weight) -> paths.put(graph.label(middle), weight));
+        assertEquals(expected, paths);
+    }
+    
+    @Test
+    public void testToString() {
+        Graph<String> graph = new InternedGraph<>();
+        graph.set("A", "B", 5);
+        assertEquals("(A) --[5]--> (B)\n", graph.toString());
+    }
+    
+}
@@ -0,0 +1,188 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ */
+public class MappedGraphTest {
+    
+    // Testing strategy
+    //   write()/open(): empty graph, isolated vertex, self-loop, non-ASCII labels,
+    //     large ids and weights (multi-byte varints); through a file and a buffer
+    //   observers: vertices(), sources(), targets(), vertexView() match the
+    //     original; missing label; id/label round trip; degrees
+    //   weight(), forEachTwoEdgePath(): match the original on a random graph,
+    //     with no paths, one path, paths through many middles, self-loops
+    //   mutators: add(), set(), remove() throw
+    //   corrupt input: wrong magic, truncated file
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "a", 2);
+        graph.set("b", "b", 5);
+        graph.set("ünïcødé", "日本", 1_000_000);
+        graph.add("d");
+        return graph;
+    }
+    
+    private static byte[] encode(Graph<String> graph) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MappedGraph.write(graph, out);
+        return out.toByteArray();
+    }
+    
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        assertEquals(expected.vertices(), new HashSet<>(actual.vertexView()));
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+        }
+    }
+    
+    @Test
+    public void testFileRoundTrip() throws IOException {
+        Path path = Files.createTempFile("graph", ".bin");
+        try {
+            Graph<String> original = sample();
+            MappedGraph.write(original, path);
+            MappedGraph mapped = MappedGraph.open(path);
+            assertSameGraph(original, mapped);
+            assertEquals(6, mapped.vertexCount());
+            assertEquals(5, mapped.edgeCount());
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    @Test
+    public void testEmpty() throws IOException {
+        MappedGraph mapped = new MappedGraph(ByteBuffer.wrap(encode(Graph.<String>empty())));
+        assertEquals(0, mapped.vertexCount());
+        assertTrue(mapped.vertices().isEmpty());
+        assertEquals(-1, mapped.id("a"));
+        assertTrue(mapped.targets("a").isEmpty());
+    }
+    
+    @Test
+    public void testIndexedAccess() throws IOException {
+        MappedGraph mapped = new MappedGraph(ByteBuffer.wrap(encode(sample())));
+        for (int v = 0; v < mapped.vertexCount(); v++) {
+            assertEquals(v, mapped.id(mapped.label(v)));
+        }
+        assertEquals(-1, mapped.id("missing"));
+        int a = mapped.id("a");
+        assertEquals(2, mapped.outDegree(a));
+        assertEquals(1, mapped.inDegree(a));
+        List<Integer> targets = new ArrayList<>();
+        mapped.forEachTarget(a, (t, w) -> targets.add(t));
+        List<Integer> sorted = new ArrayList<>(targets);
+        Collections.sort(sorted);
+        assertEquals(sorted, targets);
+        assertEquals(Collections.singletonMap("ünïcødé", 1_000_000), mapped.sources("日本"));
+    }
+    
+    @Test
+    public void testManyVertices() throws IOException {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 1000; i++) {
+            graph.set("v" + i, "v" + (i * 7 % 1000), i + 1);
+        }
+        assertSameGraph(graph, new MappedGraph(ByteBuffer.wrap(encode(graph))));
+    }
+    
+    @Test
+    public void testMutatorsThrow() throws IOException {
+        MappedGraph mapped = new MappedGraph(ByteBuffer.wrap(encode(sample())));
+        try {
+            mapped.add("x");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+        try {
+            mapped.set("a", "b", 1);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+        try {
+            mapped.remove("a");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testCorrupt() throws IOException {
+        byte[] bytes = encode(sample());
+        try {
+            new MappedGraph(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)));
+            fail("expected IOException");
+        } catch (IOException ioe) {
+            // expected
+        }
+        bytes[0] ^= 1;
+        try {
+            new MappedGraph(ByteBuffer.wrap(bytes));
+            fail("expected IOException");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testWeightAndTwoEdgePaths() throws IOException {
+        Graph<String> original = Graph.empty();
+        Random random = new Random(6005);
+        for (int i = 0; i < 400; i++) {
+            original.set("v" + random.nextInt(30), "v" + random.nextInt(30), 1 + random.nextInt(200));
+        }
+        MappedGraph mapped = new MappedGraph(ByteBuffer.wrap(encode(original)));
+        for (String source : original.vertices()) {
+            for (String target : original.vertices()) {
+                int s = mapped.id(source);
+                int t = mapped.id(target);
+                assertEquals(original.targets(source).getOrDefault(target, 0).intValue(), mapped.weight(s, t));
+                
+                Map<String, Integer> expected = new HashMap<>();
+                for (Map.Entry<String, Integer> first : original.targets(source).entrySet()) {
+                    Integer second = original.targets(first.getKey()).get(target);
+                    if (second != null) {
+                        expected.put(first.getKey(), first.getValue() + second);
+                    }
+                }
+                Map<String, Integer> paths = new HashMap<>();
+                int[] previous = { -1 };
+                mapped.forEachTwoEdgePath(s, t, (middle, weight) -> {
+                    assertTrue("increasing middle ids", middle > previous[0]);
+                    previous[0] = middle;
+                    paths.put(mapped.label(middle), weight);
+                });
+                assertEquals(expected, paths);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,108 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for PageRank.
+ */
+public class PageRankTest {
+    
+    // Testing strategy
+    //   rank(): empty graph, symmetric cycle, star, dangling vertex,
+    //     unequal weights; invalid parameters
+    //   rank() with a pool: exactly equal to sequential, single and multiple blocks
+    
+    private static final double DELTA = 1e-6;
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static double sum(Map<String, Double> ranks) {
+        double total = 0;
+        for (double rank : ranks.values()) {
+            total += rank;
+        }
+        return total;
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertTrue(PageRank.rank(Graph.<String>empty()).isEmpty());
+    }
+    
+    @Test
+    public void testCycle() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "a", 1);
+        Map<String, Double> ranks = PageRank.rank(graph);
+        for (String vertex : graph.vertices()) {
+            assertEquals(1.0 / 3, ranks.get(vertex), DELTA);
+        }
+    }
+    
+    @Test
+    public void testStarWithDanglingCenter() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "hub", 1);
+        graph.set("b", "hub", 1);
+        graph.set("c", "hub", 1);
+        Map<String, Double> ranks = PageRank.rank(graph);
+        assertEquals(1.0, sum(ranks), DELTA);
+        assertTrue(ranks.get("hub") > ranks.get("a"));
+        assertEquals(ranks.get("a"), ranks.get("b"), DELTA);
+    }
+    
+    @Test
+    public void testWeights() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "heavy", 9);
+        graph.set("a", "light", 1);
+        graph.set("heavy", "a", 1);
+        graph.set("light", "a", 1);
+        Map<String, Double> ranks = PageRank.rank(graph);
+        assertEquals(1.0, sum(ranks), DELTA);
+        assertTrue(ranks.get("heavy") > ranks.get("light"));
+    }
+    
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(2);
+        for (int n : new int[] { 10, 5000 }) {
+            Graph<String> graph = Graph.empty();
+            for (int v = 0; v < n; v++) {
+                graph.add("v" + v);
+                if (v % 7 != 0) {
+                    graph.set("v" + v, "v" + random.nextInt(n), 1 + random.nextInt(5));
+                    graph.set("v" + v, "v" + random.nextInt(n), 1 + random.nextInt(5));
+                }
+            }
+            ForkJoinPool pool = new ForkJoinPool(3);
+            try {
+                assertEquals(PageRank.rank(graph), PageRank.rank(graph, pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidDamping() {
+        PageRank.rank(Graph.<String>empty(), 1.0, 1e-9, 10);
+    }
+    
+}
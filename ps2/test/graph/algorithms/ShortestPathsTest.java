@@ -0,0 +1,82 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for ShortestPaths.
+ */
+public class ShortestPathsTest {
+    
+    // Testing strategy
+    //   dijkstra(): source not a vertex, single vertex, shorter path with more
+    //     edges, unreachable vertices; mutable vs frozen input
+    //   distanceTo(), pathTo(), isReachable(): source, reachable, unreachable, missing label
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 7);
+        graph.set("a", "c", 2);
+        graph.set("c", "d", 3);
+        graph.set("d", "b", 1);
+        graph.set("b", "e", 1);
+        graph.add("f");
+        return graph;
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMissingSource() {
+        ShortestPaths.dijkstra(sample(), "z");
+    }
+    
+    @Test
+    public void testSingleVertex() {
+        Graph<String> graph = Graph.empty();
+        graph.add("a");
+        ShortestPaths<String> paths = ShortestPaths.dijkstra(graph, "a");
+        assertEquals(0, paths.distanceTo("a"));
+        assertEquals(Arrays.asList("a"), paths.pathTo("a"));
+    }
+    
+    @Test
+    public void testShorterPathWithMoreEdges() {
+        for (Graph<String> graph : Arrays.asList(sample(), Graph.freeze(sample()))) {
+            ShortestPaths<String> paths = ShortestPaths.dijkstra(graph, "a");
+            assertEquals(6, paths.distanceTo("b"));
+            assertEquals(Arrays.asList("a", "c", "d", "b"), paths.pathTo("b"));
+            assertEquals(7, paths.distanceTo("e"));
+            assertEquals(Arrays.asList("a", "c", "d", "b", "e"), paths.pathTo("e"));
+        }
+    }
+    
+    @Test
+    public void testUnreachable() {
+        ShortestPaths<String> paths = ShortestPaths.dijkstra(sample(), "c");
+        assertTrue(paths.isReachable("b"));
+        assertFalse(paths.isReachable("a"));
+        assertFalse(paths.isReachable("f"));
+        assertFalse(paths.isReachable("z"));
+        assertEquals(Collections.emptyList(), paths.pathTo("a"));
+        try {
+            paths.distanceTo("a");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+    
+}
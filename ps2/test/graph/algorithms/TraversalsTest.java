@@ -0,0 +1,157 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for Traversals.
+ */
+public class TraversalsTest {
+    
+    // Testing strategy
+    //   breadthFirst(): start not a vertex, isolated start, branching graph
+    //     with a cycle; depths and visit order
+    //   stronglyConnectedComponents(): empty graph, self-loop, acyclic graph,
+    //     several cycles; order of components; long path (no stack overflow)
+    //   topologicalSort(): empty graph, acyclic graph, cycle, self-loop
+    //   breadthFirst() with a pool: same map and order as sequential, on small
+    //     and multi-block frontiers
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Set<String> setOf(String... labels) {
+        return new HashSet<>(Arrays.asList(labels));
+    }
+    
+    @Test
+    public void testBreadthFirstMissingStart() {
+        assertTrue(Traversals.breadthFirst(Graph.<String>empty(), "a").isEmpty());
+    }
+    
+    @Test
+    public void testBreadthFirst() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 5);
+        graph.set("a", "c", 1);
+        graph.set("b", "d", 1);
+        graph.set("c", "d", 1);
+        graph.set("d", "a", 1);
+        graph.set("e", "a", 1);
+        LinkedHashMap<String, Integer> depths = Traversals.breadthFirst(graph, "a");
+        assertEquals(4, depths.size());
+        assertEquals(Integer.valueOf(0), depths.get("a"));
+        assertEquals(Integer.valueOf(1), depths.get("b"));
+        assertEquals(Integer.valueOf(1), depths.get("c"));
+        assertEquals(Integer.valueOf(2), depths.get("d"));
+        assertEquals(Arrays.asList("a"), new ArrayList<>(depths.keySet()).subList(0, 1));
+        assertEquals("d", new ArrayList<>(depths.keySet()).get(3));
+    }
+    
+    @Test
+    public void testParallelBreadthFirstMatchesSequential() {
+        Random random = new Random(1);
+        Graph<Integer> graph = Graph.empty();
+        int n = 20_000;
+        for (int v = 0; v < n; v++) {
+            for (int k = 0; k < 3; k++) {
+                graph.set(v, random.nextInt(n), 1);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int start : new int[] { 0, 17, n + 1 }) {
+                List<Map.Entry<Integer, Integer>> expected =
+                        new ArrayList<>(Traversals.breadthFirst(graph, start).entrySet());
+                List<Map.Entry<Integer, Integer>> actual =
+                        new ArrayList<>(Traversals.breadthFirst(graph, start, pool).entrySet());
+                assertEquals(expected, actual);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testComponentsEmpty() {
+        assertTrue(Traversals.stronglyConnectedComponents(Graph.<String>empty()).isEmpty());
+    }
+    
+    @Test
+    public void testComponents() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        graph.set("b", "a", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "d", 1);
+        graph.set("d", "e", 1);
+        graph.set("e", "c", 1);
+        graph.set("f", "f", 1);
+        graph.add("g");
+        List<Set<String>> components = Traversals.stronglyConnectedComponents(graph);
+        assertEquals(new HashSet<>(Arrays.asList(setOf("a", "b"), setOf("c", "d", "e"), setOf("f"), setOf("g"))),
+                new HashSet<>(components));
+        assertTrue(components.indexOf(setOf("c", "d", "e")) < components.indexOf(setOf("a", "b")));
+    }
+    
+    @Test
+    public void testComponentsLongPath() {
+        Graph<Integer> graph = Graph.empty();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            graph.set(i, i + 1, 1);
+        }
+        graph.set(n, 0, 1);
+        List<Set<Integer>> components = Traversals.stronglyConnectedComponents(graph);
+        assertEquals(1, components.size());
+        assertEquals(n + 1, components.get(0).size());
+    }
+    
+    @Test
+    public void testTopologicalSort() {
+        Graph<String> graph = Graph.empty();
+        graph.set("shirt", "tie", 1);
+        graph.set("tie", "jacket", 1);
+        graph.set("pants", "shoes", 1);
+        graph.set("pants", "jacket", 1);
+        graph.set("socks", "shoes", 1);
+        graph.add("watch");
+        List<String> order = Traversals.topologicalSort(graph);
+        assertEquals(graph.vertices(), new HashSet<>(order));
+        assertEquals(graph.vertices().size(), order.size());
+        for (String source : graph.vertices()) {
+            for (String target : graph.targets(source).keySet()) {
+                assertTrue(source + " before " + target, order.indexOf(source) < order.indexOf(target));
+            }
+        }
+        assertTrue(Traversals.topologicalSort(Graph.<String>empty()).isEmpty());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testTopologicalSortCycle() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "a", 1);
+        Traversals.topologicalSort(graph);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testTopologicalSortSelfLoop() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "a", 1);
+        Traversals.topologicalSort(graph);
+    }
+    
+}
@@ -7,8 +7,22 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import graph.Graph;
 
 /**
  * Tests for GraphPoet.
@@ -21,11 +35,33 @@ public class GraphPoetTest {
     //   - Bridge word cases:
     //       - No bridge word possible
     //       - Unique bridge word (with highest weight)
-    //       - Multiple possible bridge words (same weight)
+    //       - Multiple possible bridge words (same weight): alphabetically first wins
+    //       - w1 with many more targets than w2 has sources, and the reverse
+    //       - same pair asked for repeatedly, in one input and across inputs
     //   - Words with different capitalization
     //   - Words with punctuation
     //   - Corpus file not found (exception)
     //   - Output formatting: correct whitespace, original case, bridge words lowercase
+    //   - Channel constructor: same graph as the file constructor, corpus larger
+    //     than the read buffer with words spanning reads
+    //   - Batch poems(): empty list, fewer inputs than a task, many inputs with
+    //     repeated pairs; same poems as poem() in order; sequential and parallel
+    //     streams
+    //   - statistics(): fresh poet, after poems with cache hits and misses
+    //   - save() and load(): round trip of a corpus and of an empty corpus gives
+    //     the same graph and poems; load() of a file that is not a model;
+    //     load() of a model whose rows are corrupt (rows are not decoded)
+    //   - append(): empty and one-word text (no change), new words, changed
+    //     bridge, cached bridges of unaffected pairs kept, poet loaded from a
+    //     model (file unchanged), concurrently with poems()
+    //   - poem(input, k): k < 1, k = 1 same as poem(), longer bridge heavier than
+    //     any shorter one, no path, paths revisiting a middle word ignored,
+    //     middle words equal to w1 or w2 (self-loops) as in poem(), ties by
+    //     length then alphabetically; best path matches exhaustive search on
+    //     a real corpus for k = 2, 3
+    //   - Parallel constructor: same graph as the sequential one with one chunk,
+    //     many chunks (boundaries inside runs of whitespace, long words longer
+    //     than a chunk, multi-byte characters), empty corpus
     //
     
     @Test(expected=AssertionError.class)
@@ -73,6 +109,39 @@ public class GraphPoetTest {
         corpus.delete();
     }
 
+    @Test
+    public void testTiedBridgeWordsAlphabeticallyFirst() throws IOException {
+        GraphPoet poet = new GraphPoet(Channels.newChannel(new ByteArrayInputStream(
+                "a d c a b c a e c".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("a b c", poet.poem("a c"));
+    }
+
+    @Test
+    public void testBridgeWithUnbalancedFanOut() throws IOException {
+        // "from" is followed by many words, only two of which precede "to",
+        // and "into" is preceded by many words, only one of which follows "out"
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            corpus.append("from w").append(i).append("\n");
+            corpus.append("v").append(i).append(" into\n");
+        }
+        corpus.append("from w7 to\nfrom w42 to\nw42 to\nout v3 into\n");
+        GraphPoet poet = new GraphPoet(Channels.newChannel(
+                new ByteArrayInputStream(corpus.toString().getBytes(StandardCharsets.UTF_8))));
+        assertEquals("from w42 to", poet.poem("from to"));
+        assertEquals("out v3 into", poet.poem("out into"));
+        assertEquals("to from", poet.poem("to from"));
+    }
+
+    @Test
+    public void testRepeatedPairs() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/mini.txt"));
+        assertEquals("a b c b a b c", poet.poem("a c a c"));
+        assertEquals("A b C x", poet.poem("A C x"));
+        assertEquals("c x", poet.poem("c x"));
+        assertEquals("c x", poet.poem("c x"));
+    }
+
     @Test
     public void testInputWordsNotInCorpus() throws IOException {
         File corpus = File.createTempFile("corpus", ".txt");
@@ -121,4 +190,348 @@ public class GraphPoetTest {
         String expected = "Seek to explore strange new life and exciting synergies!";
         assertEquals(expected, poet.poem(input));
     }
+
+    @Test
+    public void testChannelConstructor() throws IOException {
+        GraphPoet fromFile = new GraphPoet(new File("test/poet/trek.txt"));
+        byte[] corpus = java.nio.file.Files.readAllBytes(new File("test/poet/trek.txt").toPath());
+        GraphPoet fromChannel = new GraphPoet(Channels.newChannel(new ByteArrayInputStream(corpus)));
+        String input = "Seek to explore new and exciting synergies!";
+        assertEquals(fromFile.poem(input), fromChannel.poem(input));
+    }
+
+    @Test
+    public void testLargeCorpusSpanningReads() throws IOException {
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            corpus.append("alpha beta gamma\n");
+        }
+        corpus.append("alpha delta gamma");
+        GraphPoet poet = new GraphPoet(Channels.newChannel(
+                new ByteArrayInputStream(corpus.toString().getBytes(StandardCharsets.UTF_8))));
+        assertEquals("Alpha beta Gamma", poet.poem("Alpha Gamma"));
+        assertEquals("gamma alpha", poet.poem("gamma alpha"));
+    }
+
+    private static String sortedEdges(GraphPoet poet) {
+        String[] lines = poet.toString().split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        StringBuilder text = new StringBuilder();
+        String[] words = { "a", "B", "c", "naïve", "日本", "supercalifragilisticexpialidocious", "a", "b" };
+        for (int i = 0; i < 3000; i++) {
+            text.append(words[i * 7 % words.length]).append(i % 5 == 0 ? "  \n\t" : " ");
+        }
+        java.nio.file.Files.write(corpus.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            String expected = sortedEdges(new GraphPoet(corpus));
+            assertEquals(expected, sortedEdges(new GraphPoet(corpus, pool)));
+            for (long chunkBytes : new long[] { 1, 7, 100, 4096 }) {
+                assertEquals("chunk " + chunkBytes, expected, sortedEdges(new GraphPoet(corpus, pool, chunkBytes)));
+            }
+        } finally {
+            pool.shutdown();
+            corpus.delete();
+        }
+    }
+
+    @Test
+    public void testParallelEmptyCorpus() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"), pool, 1);
+            assertEquals("", poet.toString());
+            assertEquals("a b", poet.poem("a b"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testPoemsMatchPoem() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/trek.txt"));
+        GraphPoet reference = new GraphPoet(new File("test/poet/trek.txt"));
+        String[] phrases = { "Seek to explore new and exciting synergies!", "to new", "strange life",
+                             "boldly where", "x", "To Boldly go" };
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(phrases[i % phrases.length]);
+            expected.add(reference.poem(phrases[i % phrases.length]));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, poet.poems(inputs, pool));
+            assertEquals(expected.subList(0, 3), poet.poems(inputs.subList(0, 3), pool));
+            assertEquals(Collections.emptyList(), poet.poems(Collections.<String>emptyList(), pool));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(expected, poet.poems(inputs.stream()).collect(Collectors.toList()));
+        assertEquals(expected, poet.poems(inputs.parallelStream()).collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void testStatistics() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/mini.txt"));
+        PoetStatistics fresh = poet.statistics();
+        assertEquals(0, fresh.getPoems());
+        assertEquals(0, fresh.getWords());
+        assertEquals(0, fresh.getCacheHits() + fresh.getCacheMisses());
+        assertEquals(0, fresh.getCacheHitRate(), 0);
+        
+        poet.poem("a c a c"); // pairs (a,c) (c,a) (a,c): one repeat
+        poet.poem("x");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            poet.poems(Arrays.asList("c a", "a c"), pool); // both repeats
+        } finally {
+            pool.shutdown();
+        }
+        PoetStatistics statistics = poet.statistics();
+        assertEquals(4, statistics.getPoems());
+        assertEquals(9, statistics.getWords());
+        assertEquals(2, statistics.getCacheMisses());
+        assertEquals(3, statistics.getCacheHits());
+        assertEquals(0.6, statistics.getCacheHitRate(), 1e-9);
+        assertTrue(statistics.getNanos() > 0);
+        assertTrue(statistics.getPoemsPerSecond() > 0);
+        assertTrue(statistics.toString().startsWith("4 poems, 9 words"));
+    }
+    
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/trek.txt"));
+        File model = File.createTempFile("poet", ".model");
+        try {
+            poet.save(model.toPath());
+            GraphPoet loaded = GraphPoet.load(model.toPath());
+            assertEquals(sortedEdges(poet), sortedEdges(loaded));
+            for (String input : Arrays.asList("Seek to explore new and exciting synergies!",
+                                              "To Boldly", "x y", "")) {
+                assertEquals(poet.poem(input), loaded.poem(input));
+            }
+        } finally {
+            model.delete();
+        }
+    }
+    
+    @Test
+    public void testSaveAndLoadEmptyCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"));
+        File model = File.createTempFile("poet", ".model");
+        try {
+            poet.save(model.toPath());
+            GraphPoet loaded = GraphPoet.load(model.toPath());
+            assertEquals("", loaded.toString());
+            assertEquals("a b", loaded.poem("a b"));
+        } finally {
+            model.delete();
+        }
+    }
+    
+    @Test
+    public void testLoadDoesNotDecodeRows() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/trek.txt"));
+        File model = File.createTempFile("poet", ".model");
+        try {
+            poet.save(model.toPath());
+            try (RandomAccessFile file = new RandomAccessFile(model, "rw")) {
+                // overwrite every out and in row with unterminated varints
+                file.seek(36);
+                int outRowsPos = file.readInt();
+                byte[] garbage = new byte[(int) file.length() - outRowsPos];
+                Arrays.fill(garbage, (byte) 0x80);
+                file.seek(outRowsPos);
+                file.write(garbage);
+            }
+            assertNotNull(GraphPoet.load(model.toPath()));
+        } finally {
+            model.delete();
+        }
+    }
+    
+    @Test(expected=IOException.class)
+    public void testLoadNotAModel() throws IOException {
+        GraphPoet.load(new File("test/poet/trek.txt").toPath());
+    }
+    
+    private static GraphPoet poet(String corpus) throws IOException {
+        return new GraphPoet(Channels.newChannel(new ByteArrayInputStream(corpus.getBytes(StandardCharsets.UTF_8))));
+    }
+    
+    @Test
+    public void testAppend() throws IOException {
+        GraphPoet poet = poet("a b c\nd e f");
+        assertEquals("A b C", poet.poem("A C"));
+        assertEquals("d e f", poet.poem("d f"));
+        assertEquals("x y", poet.poem("x y"));
+        String edges = sortedEdges(poet);
+        poet.append("");
+        poet.append("  one  ");
+        assertEquals(edges, sortedEdges(poet));
+        
+        poet.append("a Z c\na z C\nx q y");
+        assertEquals("A z C", poet.poem("A C"));
+        assertEquals("x q y", poet.poem("x y"));
+        assertEquals("d e f", poet.poem("d f"));
+        assertTrue(poet.toString().contains("(a) --[2]--> (z)"));
+        assertTrue(poet.toString().contains("(a) --[1]--> (b)"));
+        assertFalse("no adjacency across the append", poet.toString().contains("(f) --"));
+        PoetStatistics statistics = poet.statistics();
+        assertEquals(4, statistics.getCacheMisses()); // (a, c) twice, (d, f) and (x, y) once
+        assertEquals(1, statistics.getCacheHits()); // (d, f) kept: not affected
+    }
+    
+    @Test
+    public void testAppendToLoadedModel() throws IOException {
+        GraphPoet poet = poet("a b c");
+        File model = File.createTempFile("poet", ".model");
+        try {
+            poet.save(model.toPath());
+            byte[] saved = java.nio.file.Files.readAllBytes(model.toPath());
+            GraphPoet loaded = GraphPoet.load(model.toPath());
+            assertEquals("a b c", loaded.poem("a c"));
+            loaded.append("a d c a d c");
+            assertEquals("a d c", loaded.poem("a c"));
+            assertTrue(Arrays.equals(saved, java.nio.file.Files.readAllBytes(model.toPath())));
+        } finally {
+            model.delete();
+        }
+    }
+    
+    @Test
+    public void testAppendConcurrentWithPoems() throws Exception {
+        GraphPoet poet = poet("a b c a b c");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Future<?> appends = pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    poet.append("a d c");
+                }
+            });
+            List<String> inputs = Collections.nCopies(200, "a c");
+            while (!appends.isDone()) {
+                for (String poem : poet.poems(inputs, pool)) {
+                    assertTrue(poem, poem.equals("a b c") || poem.equals("a d c"));
+                }
+            }
+            appends.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("a d c", poet.poem("a c"));
+        assertTrue(poet.toString().contains("(a) --[200]--> (d)"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMultiWordBridgeNeedsPositiveK() throws IOException {
+        poet("a b c").poem("a c", 0);
+    }
+    
+    @Test
+    public void testMultiWordBridge() throws IOException {
+        GraphPoet poet = poet("a x y c a x y c a x y c\na b c\nb d e b d e");
+        assertEquals(poet.poem("A C x"), poet.poem("A C x", 1));
+        assertEquals("A b C a x", poet.poem("A C x", 1));
+        assertEquals("A x y C a x", poet.poem("A C x", 2));
+        // middle words may be w1 or w2: a b c a x y c repeats neither a nor c as a middle
+        assertEquals("A b c a x y C b c a x", poet.poem("A C x", 5));
+        assertEquals("e b d", poet.poem("e d", 3)); // b d e b is not simple
+        assertEquals("e b c a", poet.poem("e a", 3));
+        assertEquals("e a", poet.poem("e a", 1));
+        assertEquals("c q", poet.poem("c q", 3));
+        assertEquals("a b c a", poet.poem("a a", 2));
+        assertEquals("c a", poet("a b c").poem("c a", 3));
+        assertEquals("Hello hello", poet("hello").poem("Hello hello", 3));
+    }
+    
+    @Test
+    public void testMultiWordBridgeThroughInputWords() throws IOException {
+        GraphPoet poet = poet("a a b");
+        assertEquals("a a b", poet.poem("a b"));
+        for (int k = 1; k <= 3; k++) {
+            assertEquals("k=" + k, "a a b", poet.poem("a b", k));
+        }
+        poet = poet("a b b\nc c");
+        assertEquals("a b b", poet.poem("a b", 2));
+        assertEquals("c c c", poet.poem("c c", 2)); // c repeated only as a middle word once
+        poet = poet("a b x b x b");
+        assertEquals("a b", poet.poem("a b", 1));
+        assertEquals("a b x b", poet.poem("a b", 2));
+    }
+    
+    @Test
+    public void testMultiWordBridgeTies() throws IOException {
+        // a p q c and a r c have weight 3; a m n c also weighs 3
+        GraphPoet poet = poet("a p q c\na r c a r\na n n2 c\na m q2 c\nq2 z");
+        assertEquals("a r c", poet.poem("a c", 2));
+        poet = poet("a p q c\na m q2 c");
+        assertEquals("a m q2 c", poet.poem("a c", 2));
+    }
+    
+    // the middle words of the best path from w1 to w2 with 2..k+1 edges and no
+    // repeated middle word, by brute force
+    private static List<String> bestPath(Graph<String> graph, List<String> path, String w2, int k,
+                                         long weight, Object[] best) {
+        String last = path.get(path.size() - 1);
+        for (Map.Entry<String, Integer> edge : graph.targets(last).entrySet()) {
+            String next = edge.getKey();
+            long total = weight + edge.getValue();
+            if (next.equals(w2) && path.size() >= 2) {
+                List<String> middles = path.subList(1, path.size());
+                @SuppressWarnings("unchecked")
+                List<String> bestMiddles = (List<String>) best[1];
+                long bestWeight = (Long) best[0];
+                if (total > bestWeight || (total == bestWeight && (middles.size() < bestMiddles.size()
+                        || (middles.size() == bestMiddles.size()
+                            && String.join("\u0000", middles).compareTo(String.join("\u0000", bestMiddles)) < 0)))) {
+                    best[0] = total;
+                    best[1] = new ArrayList<>(middles);
+                }
+            }
+            if (path.size() <= k && !path.subList(1, path.size()).contains(next)) {
+                path.add(next);
+                bestPath(graph, path, w2, k, total, best);
+                path.remove(path.size() - 1);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<String> result = (List<String>) best[1];
+        return result;
+    }
+    
+    @Test
+    public void testMultiWordBridgeMatchesExhaustiveSearch() throws IOException {
+        String corpus = new String(java.nio.file.Files.readAllBytes(new File("test/poet/trek.txt").toPath()),
+                                   StandardCharsets.UTF_8) + " to strange new worlds and new life";
+        GraphPoet poet = poet(corpus);
+        Graph<String> graph = Graph.empty();
+        String[] words = corpus.trim().toLowerCase().split("\\s+");
+        for (int i = 0; i + 1 < words.length; i++) {
+            graph.addWeight(words[i], words[i + 1], 1);
+        }
+        List<String> vocabulary = new ArrayList<>(graph.vertices());
+        Collections.sort(vocabulary);
+        for (int k = 2; k <= 3; k++) {
+            for (String w1 : vocabulary) {
+                for (String w2 : vocabulary) {
+                    List<String> path = new ArrayList<>(Arrays.asList(w1));
+                    List<String> middles = bestPath(graph, path, w2, k, 0,
+                                                    new Object[] { 0L, Collections.<String>emptyList() });
+                    List<String> expected = new ArrayList<>(Arrays.asList(w1));
+                    expected.addAll(middles);
+                    expected.add(w2);
+                    assertEquals(w1 + " " + w2 + " k=" + k, String.join(" ", expected), poet.poem(w1 + " " + w2, k));
+                }
+            }
+        }
+    }
+    
 }
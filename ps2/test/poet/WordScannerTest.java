@@ -0,0 +1,87 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for WordScanner.
+ */
+public class WordScannerTest {
+    
+    // Testing strategy
+    //   text: empty, only whitespace, leading/trailing whitespace, every kind
+    //     of whitespace, multi-byte UTF-8 characters (2, 3 and 4 bytes)
+    //   buffer size: words and UTF-8 sequences split across reads (tiny
+    //     buffers), default buffer
+    //   input: channel, byte buffer, string; invalid UTF-8
+    
+    private static List<String> scan(String text, int bufferBytes) throws IOException {
+        List<String> words = new ArrayList<>();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        WordScanner.scan(Channels.newChannel(new ByteArrayInputStream(bytes)), words::add, bufferBytes);
+        return words;
+    }
+    
+    private static List<String> expected(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? new ArrayList<>() : Arrays.asList(trimmed.split("\\s+"));
+    }
+    
+    @Test
+    public void testEmptyAndBlank() throws IOException {
+        assertEquals(new ArrayList<>(), scan("", 16));
+        assertEquals(new ArrayList<>(), scan(" \n\t\r\f\u000B ", 16));
+    }
+    
+    @Test
+    public void testMatchesSplit() throws IOException {
+        String[] texts = {
+            "a",
+            "  Hello, HELLO,\thello, goodbye!  ",
+            "line one\r\nline two\nline\u000Bthree\ffour",
+            "naïve café — 日本語 テキスト 😀 emoji😀 end",
+        };
+        for (String text : texts) {
+            for (int bufferBytes : new int[] { 4, 5, 7, 64, WordScanner.BUFFER_BYTES }) {
+                assertEquals(text + " / " + bufferBytes, expected(text), scan(text, bufferBytes));
+            }
+        }
+    }
+    
+    @Test
+    public void testString() {
+        for (String text : new String[] { "", " \t\n", "a", "  Hello, HELLO,\thello, goodbye!  ", "日本 😀x" }) {
+            List<String> words = new ArrayList<>();
+            WordScanner.scan(text, words::add);
+            assertEquals(text, expected(text), words);
+        }
+    }
+    
+    @Test
+    public void testByteBuffer() throws IOException {
+        String text = "The quick  brown\nfox 日本";
+        List<String> words = new ArrayList<>();
+        WordScanner.scan(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), words::add);
+        assertEquals(expected(text), words);
+    }
+    
+    @Test(expected=IOException.class)
+    public void testInvalidUtf8() throws IOException {
+        byte[] bytes = { 'a', ' ', (byte) 0xC3, ' ', 'b' };
+        WordScanner.scan(Channels.newChannel(new ByteArrayInputStream(bytes)), w -> {}, 16);
+    }
+    
+}
@@ -3,6 +3,9 @@
  */
 package minesweeper;
 
+import java.util.BitSet;
+import java.util.Optional;
+
 public class Board {
 
     /**
@@ -20,11 +23,13 @@ public class Board {
      *  thread safety:
      *      - Using monitor pattern, all accesses to board happen with in Board method,
      *      - which all guarded by Board's lock
+     *      - hints is only used inside Board's synchronized methods
      */
 
     private final int width;
     private final int height;
     private final Cell[][] grid;
+    private final HintSolver hints;
 
     public Board(int width, int height) {
         if (width <= 0 || height <= 0) throw new IllegalArgumentException();
@@ -36,6 +41,7 @@ public class Board {
                 grid[x][y] = new Cell(false);
             }
         }
+        this.hints = new HintSolver(this, width, height);
     }
 
     /**
@@ -59,6 +65,29 @@ public class Board {
                 grid[x][y] = new Cell(bombInfo[x][y]);
             }
         }
+        this.hints = new HintSolver(this, width, height);
+    }
+
+    /**
+     * Make a board with bombs located according to the given packed bomb layout.
+     * @param width the width of the board
+     * @param height the height of the board
+     * @param bombs bomb layout for the board, where bit (y * width + x) is set iff
+     *              the cell at coordinates (x,y) should contain a bomb;
+     *              bits at or beyond width * height must be clear
+     */
+    public Board(int width, int height, BitSet bombs) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException();
+        if (bombs.length() > (long) width * height) throw new IllegalArgumentException();
+        this.width = width;
+        this.height = height;
+        this.grid = new Cell[width][height];
+        for (int x = 0; x < width; x++) {
+            for(int y = 0; y < height; y++) {
+                grid[x][y] = new Cell(bombs.get(y * width + x));
+            }
+        }
+        this.hints = new HintSolver(this, width, height);
     }
 
     /**
@@ -125,6 +154,7 @@ public class Board {
             cell.removeBomb();
             bombFlag = true;
         }
+        hints.cellDug(x, y);
 
         // case: no bomb
         if (countNeighborBooms(x, y) == 0) {
@@ -207,6 +237,22 @@ public class Board {
         return sb.toString();
     }
 
+    /**
+     * Find a move that is certainly correct, judging only from what players can
+     * see: the dug squares and their neighbor bomb counts.
+     * Work is incremental; only the squares affected by digs since the last
+     * call are re-examined.
+     * @return "dig X Y" for an untouched square that certainly has no bomb, else
+     *         "flag X Y" for an untouched square that certainly has a bomb, else empty.
+     */
+    public synchronized Optional<String> getHint() {
+        int[] hint = hints.hint();
+        if (hint == null) {
+            return Optional.empty();
+        }
+        return Optional.of((hint[2] == 1 ? "dig " : "flag ") + hint[0] + " " + hint[1]);
+    }
+
     @Override
     public String toString() {
         return getBoardMessage();
@@ -217,8 +263,8 @@ public class Board {
         return x >= 0 && x < width && y >= 0 && y < height;
     }
 
-    // Count the number of bombs around (x, y)
-    private int countNeighborBooms(int x, int y) {
+    // Count the number of bombs around (x, y); also used by HintSolver
+    int countNeighborBooms(int x, int y) {
         if (!isValidPosition(x, y)) {
             throw new IllegalArgumentException("Invalid position");
         }
@@ -0,0 +1,384 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental constraint solver behind Board.getHint().
+ * This class is internal to the rep of Board.
+ *
+ * <p>The solver only uses what players can see: every dug cell is a constraint
+ * saying how many of its not-dug neighbors contain a bomb. Deductions are facts
+ * about the real board, and the real board only changes at cells that get dug,
+ * so a deduction stays valid until its cell is dug. Each dig marks the dug cell
+ * and its dug neighbors dirty, and only dirty constraints are re-examined:
+ *   1. single-constraint rules (all remaining neighbors safe / all bombs),
+ *   2. subset elimination against constraints within distance 2,
+ *   3. exhaustive enumeration of small frontier components touched since the
+ *      last enumeration.
+ */
+class HintSolver {
+
+    /** Components with more unknown cells than this are not enumerated. */
+    private static final int MAX_ENUMERATION_CELLS = 16;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte BOMB = 2;
+
+    private final Board board;
+    private final int width;
+    private final int height;
+    private final byte[] known;
+    private final Deque<Integer> dirty = new ArrayDeque<>();
+    private final boolean[] isDirty;
+    private final Set<Integer> touched = new LinkedHashSet<>();
+    private final Set<Integer> safeCells = new LinkedHashSet<>();
+    private final Set<Integer> bombCells = new LinkedHashSet<>();
+
+    // Abstraction function:
+    //      represents the deductions made so far about the not-dug cells of board,
+    //      where cell (x,y) has index y * width + x; known[i] is SAFE or BOMB if
+    //      cell i was proven safe or proven to contain a bomb.
+    //      dirty holds the dug cells whose constraint changed since it was last examined,
+    //      touched holds the dug cells examined since the last enumeration.
+    // Representation invariant:
+    //      known.length == isDirty.length == width * height
+    //      isDirty[i] iff i is in dirty
+    //      safeCells = { i | known[i] == SAFE }, bombCells = { i | known[i] == BOMB },
+    //        except for cells dug since, which are dropped lazily
+    // Safety from rep exposure:
+    //      All fields are private and final; only cell coordinates leave this class.
+    // Thread safety:
+    //      Not threadsafe on its own; every call happens while holding the lock of board.
+
+    HintSolver(Board board, int width, int height) {
+        this.board = board;
+        this.width = width;
+        this.height = height;
+        this.known = new byte[width * height];
+        this.isDirty = new boolean[width * height];
+    }
+
+    /**
+     * Record that the cell at (x,y) was just dug.
+     * Requires the cell is DUG on board, with its bomb (if any) already removed.
+     * @param x x coordinate of the dug cell
+     * @param y y coordinate of the dug cell
+     */
+    void cellDug(int x, int y) {
+        int cell = y * width + x;
+        known[cell] = UNKNOWN;
+        markDirty(cell);
+        // every dug neighbor loses this cell as an unknown, and its count drops if it was a bomb
+        for (int neighbor : neighbors(cell)) {
+            if (isDug(neighbor)) {
+                markDirty(neighbor);
+            }
+        }
+    }
+
+    /**
+     * Find a move that is certainly correct given the visible board.
+     * @return {x, y, 1} for a safe untouched cell to dig, {x, y, 0} for an
+     *         untouched cell that certainly has a bomb, or null if no such cell is known
+     */
+    int[] hint() {
+        solve();
+        Integer safe = firstUntouched(safeCells);
+        if (safe != null) {
+            return new int[] { safe % width, safe / width, 1 };
+        }
+        Integer bomb = firstUntouched(bombCells);
+        if (bomb != null) {
+            return new int[] { bomb % width, bomb / width, 0 };
+        }
+        return null;
+    }
+
+    // first cell of cells that is still UNTOUCHED, dropping cells that were dug
+    private Integer firstUntouched(Set<Integer> cells) {
+        Integer result = null;
+        List<Integer> stale = new ArrayList<>();
+        for (int cell : cells) {
+            Cell.State state = board.getCellState(cell % width, cell / width);
+            if (state == Cell.State.DUG) {
+                stale.add(cell);
+            } else if (state == Cell.State.UNTOUCHED) {
+                result = cell;
+                break;
+            }
+        }
+        cells.removeAll(stale);
+        return result;
+    }
+
+    // run the propagation rules, then enumeration, until nothing new is deduced
+    private void solve() {
+        while (true) {
+            while (!dirty.isEmpty()) {
+                int cell = dirty.poll();
+                isDirty[cell] = false;
+                touched.add(cell);
+                if (applySingle(cell)) {
+                    continue;
+                }
+                applySubsets(cell);
+            }
+            if (touched.isEmpty() || !enumerateTouched()) {
+                return;
+            }
+        }
+    }
+
+    // rule 1: a constraint alone decides all of its unknown cells; return true if it did
+    private boolean applySingle(int cell) {
+        List<Integer> unknowns = unknownNeighbors(cell);
+        if (unknowns.isEmpty()) {
+            return true;
+        }
+        int remaining = remainingBombs(cell);
+        if (remaining == 0) {
+            deduceAll(unknowns, SAFE);
+            return true;
+        }
+        if (remaining == unknowns.size()) {
+            deduceAll(unknowns, BOMB);
+            return true;
+        }
+        return false;
+    }
+
+    // rule 2: compare with each constraint within distance 2 whose unknowns form a subset or superset
+    private void applySubsets(int cell) {
+        List<Integer> unknowns = unknownNeighbors(cell);
+        int remaining = remainingBombs(cell);
+        int x = cell % width;
+        int y = cell / width;
+        for (int dy = -2; dy <= 2; dy++) {
+            for (int dx = -2; dx <= 2; dx++) {
+                int xx = x + dx;
+                int yy = y + dy;
+                if ((dx == 0 && dy == 0) || xx < 0 || xx >= width || yy < 0 || yy >= height) continue;
+                int other = yy * width + xx;
+                if (!isDug(other)) continue;
+                List<Integer> otherUnknowns = unknownNeighbors(other);
+                if (otherUnknowns.isEmpty()) continue;
+                int otherRemaining = remainingBombs(other);
+                if (otherUnknowns.size() > unknowns.size() && otherUnknowns.containsAll(unknowns)) {
+                    deduceDifference(otherUnknowns, unknowns, otherRemaining - remaining);
+                } else if (unknowns.size() > otherUnknowns.size() && unknowns.containsAll(otherUnknowns)) {
+                    deduceDifference(unknowns, otherUnknowns, remaining - otherRemaining);
+                }
+                if (unknownNeighbors(cell).size() != unknowns.size()) {
+                    return; // this constraint changed, it is dirty again
+                }
+            }
+        }
+    }
+
+    // superset \ subset holds exactly bombs bombs
+    private void deduceDifference(List<Integer> superset, List<Integer> subset, int bombs) {
+        List<Integer> difference = new ArrayList<>(superset);
+        difference.removeAll(subset);
+        if (bombs == 0) {
+            deduceAll(difference, SAFE);
+        } else if (bombs == difference.size()) {
+            deduceAll(difference, BOMB);
+        }
+    }
+
+    // rule 3: enumerate small components around touched constraints; return true if anything was deduced
+    private boolean enumerateTouched() {
+        boolean progress = false;
+        Set<Integer> seen = new LinkedHashSet<>();
+        for (int start : touched) {
+            if (seen.contains(start) || unknownNeighbors(start).isEmpty()) continue;
+            // collect the component of constraints connected through shared unknown cells
+            List<Integer> constraints = new ArrayList<>();
+            Map<Integer, Integer> variables = new HashMap<>();
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(start);
+            seen.add(start);
+            boolean tooLarge = false;
+            while (!queue.isEmpty() && !tooLarge) {
+                int constraint = queue.poll();
+                constraints.add(constraint);
+                for (int unknown : unknownNeighbors(constraint)) {
+                    if (variables.containsKey(unknown)) continue;
+                    if (variables.size() == MAX_ENUMERATION_CELLS) {
+                        tooLarge = true;
+                        break;
+                    }
+                    variables.put(unknown, variables.size());
+                    for (int neighbor : neighbors(unknown)) {
+                        if (isDug(neighbor) && seen.add(neighbor)) {
+                            queue.add(neighbor);
+                        }
+                    }
+                }
+            }
+            if (!tooLarge) {
+                progress |= enumerate(constraints, variables);
+            }
+        }
+        touched.clear();
+        return progress;
+    }
+
+    // try every assignment of bombs to variables consistent with constraints
+    private boolean enumerate(List<Integer> constraints, Map<Integer, Integer> variables) {
+        int n = variables.size();
+        int[][] members = new int[constraints.size()][];
+        int[] required = new int[constraints.size()];
+        List<List<Integer>> constraintsOf = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            constraintsOf.add(new ArrayList<>());
+        }
+        for (int c = 0; c < constraints.size(); c++) {
+            List<Integer> unknowns = unknownNeighbors(constraints.get(c));
+            members[c] = new int[unknowns.size()];
+            for (int k = 0; k < unknowns.size(); k++) {
+                int v = variables.get(unknowns.get(k));
+                members[c][k] = v;
+                constraintsOf.get(v).add(c);
+            }
+            required[c] = remainingBombs(constraints.get(c));
+        }
+
+        int[] bombsIn = new int[constraints.size()];
+        int[] unassignedIn = new int[constraints.size()];
+        for (int c = 0; c < constraints.size(); c++) {
+            unassignedIn[c] = members[c].length;
+        }
+        boolean[] assignment = new boolean[n];
+        int[] bombCount = new int[n];
+        int solutions = search(0, n, assignment, bombsIn, unassignedIn, required, constraintsOf, bombCount);
+        if (solutions == 0) {
+            return false; // inconsistent with the visible board; deduce nothing
+        }
+
+        boolean progress = false;
+        for (Map.Entry<Integer, Integer> entry : variables.entrySet()) {
+            int count = bombCount[entry.getValue()];
+            if (count == 0) {
+                progress |= deduce(entry.getKey(), SAFE);
+            } else if (count == solutions) {
+                progress |= deduce(entry.getKey(), BOMB);
+            }
+        }
+        return progress;
+    }
+
+    // backtracking search; returns the number of solutions and adds each variable's bomb count
+    private int search(int v, int n, boolean[] assignment, int[] bombsIn, int[] unassignedIn,
+            int[] required, List<List<Integer>> constraintsOf, int[] bombCount) {
+        if (v == n) {
+            for (int i = 0; i < n; i++) {
+                if (assignment[i]) bombCount[i]++;
+            }
+            return 1;
+        }
+        int solutions = 0;
+        for (int value = 0; value <= 1; value++) {
+            boolean bomb = value == 1;
+            boolean consistent = true;
+            for (int c : constraintsOf.get(v)) {
+                unassignedIn[c]--;
+                if (bomb) bombsIn[c]++;
+                if (bombsIn[c] > required[c] || bombsIn[c] + unassignedIn[c] < required[c]) {
+                    consistent = false;
+                }
+            }
+            if (consistent) {
+                assignment[v] = bomb;
+                solutions += search(v + 1, n, assignment, bombsIn, unassignedIn, required, constraintsOf, bombCount);
+            }
+            for (int c : constraintsOf.get(v)) {
+                unassignedIn[c]++;
+                if (bomb) bombsIn[c]--;
+            }
+        }
+        assignment[v] = false;
+        return solutions;
+    }
+
+    private void deduceAll(List<Integer> cells, byte value) {
+        for (int cell : cells) {
+            deduce(cell, value);
+        }
+    }
+
+    // record a deduction about a not-dug cell; its dug neighbors' constraints change
+    private boolean deduce(int cell, byte value) {
+        if (known[cell] != UNKNOWN) {
+            return false;
+        }
+        known[cell] = value;
+        (value == SAFE ? safeCells : bombCells).add(cell);
+        for (int neighbor : neighbors(cell)) {
+            if (isDug(neighbor)) {
+                markDirty(neighbor);
+            }
+        }
+        return true;
+    }
+
+    private void markDirty(int cell) {
+        if (!isDirty[cell]) {
+            isDirty[cell] = true;
+            dirty.add(cell);
+        }
+    }
+
+    // not-dug neighbors of cell with no deduction yet
+    private List<Integer> unknownNeighbors(int cell) {
+        List<Integer> result = new ArrayList<>(8);
+        for (int neighbor : neighbors(cell)) {
+            if (!isDug(neighbor) && known[neighbor] == UNKNOWN) {
+                result.add(neighbor);
+            }
+        }
+        return result;
+    }
+
+    // bombs around a dug cell not yet accounted for by BOMB deductions
+    private int remainingBombs(int cell) {
+        int remaining = board.countNeighborBooms(cell % width, cell / width);
+        for (int neighbor : neighbors(cell)) {
+            if (!isDug(neighbor) && known[neighbor] == BOMB) {
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+
+    private boolean isDug(int cell) {
+        return board.getCellState(cell % width, cell / width) == Cell.State.DUG;
+    }
+
+    private List<Integer> neighbors(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        List<Integer> result = new ArrayList<>(8);
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int xx = x + dx;
+                int yy = y + dy;
+                if ((dx != 0 || dy != 0) && xx >= 0 && xx < width && yy >= 0 && yy < height) {
+                    result.add(yy * width + xx);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,297 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import minesweeper.Board;
+
+/**
+ * Parser for the board file format accepted by "--file" (see MinesweeperServer.main).
+ *
+ * <p>The file is memory-mapped and the rows are split into byte ranges that are
+ * parsed in parallel straight into a packed bit set, where bit (y * width + x)
+ * is set iff the cell at (x,y) contains a bomb.
+ * Like the original line-based reader, values may be separated by any run of
+ * spaces or tabs, and the last row need not end with a newline.
+ * Malformed input is reported with the line and column of the first error.
+ */
+final class BoardFileParser {
+
+    /** Files smaller than this are parsed by a single task. */
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    private BoardFileParser() {}
+
+    /**
+     * Read a board from a file.
+     * @param file board file in the "--file" format
+     * @return a board with bombs located as described by the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed; the message
+     *         starts with "line L, column C:" locating the error
+     */
+    static Board parse(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Board file too large: " + size + " bytes");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(buffer);
+        }
+    }
+
+    /**
+     * Parse a board from the bytes between position 0 and the limit of buffer.
+     * @param bytes contents of a board file, not modified
+     * @return a board with bombs located as described by the bytes
+     * @throws IllegalArgumentException if the bytes are malformed; the message
+     *         starts with "line L, column C:" locating the error
+     */
+    static Board parse(ByteBuffer bytes) {
+        return parse(bytes, 0);
+    }
+
+    /*
+     * As parse(bytes), with chunks of about chunkBytes bytes, or a size chosen
+     * from the length and the number of processors if chunkBytes is 0.
+     */
+    static Board parse(ByteBuffer bytes, int chunkBytes) {
+        int length = bytes.limit();
+        if (length == 0) {
+            throw error(1, 1, "file is empty");
+        }
+
+        // header: X SPACE Y NEWLINE
+        int headerEnd = lineEnd(bytes, 0);
+        int[] header = parseHeader(bytes, headerEnd);
+        int width = header[0];
+        int height = header[1];
+        int bodyStart = nextLineStart(bytes, headerEnd);
+
+        // split the rows into chunks at line boundaries
+        if (chunkBytes <= 0) {
+            chunkBytes = Math.max(MIN_CHUNK_BYTES,
+                    (length - bodyStart) / (Runtime.getRuntime().availableProcessors() * 4) + 1);
+        }
+        int chunks = Math.max(1, (length - bodyStart) / chunkBytes);
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = bodyStart;
+        bounds[chunks] = length;
+        for (int i = 1; i < chunks; i++) {
+            long nominal = bodyStart + (long) (length - bodyStart) * i / chunks;
+            bounds[i] = alignToLineStart(bytes, Math.max(bounds[i - 1], (int) nominal));
+        }
+
+        // pass 1: count the rows in each chunk to find where each chunk starts
+        int[] rowsPerChunk = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(
+                i -> rowsPerChunk[i] = countLines(bytes, bounds[i], bounds[i + 1]));
+        int[] firstRow = new int[chunks + 1];
+        for (int i = 0; i < chunks; i++) {
+            firstRow[i + 1] = firstRow[i] + rowsPerChunk[i];
+        }
+        int rows = firstRow[chunks];
+        if (rows < height) {
+            throw error(rows + 2, 1, "missing rows, expected " + height + " but found " + rows);
+        }
+        if (rows > height) {
+            throw error(height + 2, 1, "extra rows, expected " + height);
+        }
+
+        // pass 2: parse the rows of each chunk into the shared bit words
+        long[] words = new long[(int) (((long) width * height + 63) >>> 6)];
+        ChunkResult[] results = new ChunkResult[chunks];
+        IntStream.range(0, chunks).parallel().forEach(i -> results[i] =
+                parseChunk(bytes, bounds[i], bounds[i + 1], firstRow[i], rowsPerChunk[i], width, words));
+
+        for (ChunkResult result : results) {
+            if (result.error != null) {
+                throw result.error;
+            }
+        }
+        // words shared with neighbouring chunks are merged only after all tasks finish
+        for (ChunkResult result : results) {
+            if (result.firstWord >= 0) {
+                words[result.firstWord] |= result.firstBits;
+                words[result.lastWord] |= result.lastBits;
+            }
+        }
+        return new Board(width, height, BitSet.valueOf(words));
+    }
+
+    /*
+     * Bits set by one chunk in the first and last words of its bit range, which
+     * may be shared with the neighbouring chunks, plus the first error found.
+     */
+    private static final class ChunkResult {
+        int firstWord = -1;
+        int lastWord = -1;
+        long firstBits;
+        long lastBits;
+        IllegalArgumentException error;
+    }
+
+    // parse rows [firstRow, firstRow + rows) found in bytes [start, end)
+    private static ChunkResult parseChunk(ByteBuffer bytes, int start, int end, int firstRow, int rows,
+            int width, long[] words) {
+        ChunkResult result = new ChunkResult();
+        long lo = (long) firstRow * width;
+        long hi = (long) (firstRow + rows) * width;
+        if (hi > lo) {
+            result.firstWord = (int) (lo >>> 6);
+            result.lastWord = (int) ((hi - 1) >>> 6);
+        }
+        int row = firstRow;
+        int pos = start;
+        try {
+            while (pos < end) {
+                int eol = lineEnd(bytes, pos);
+                int x = 0;
+                int i = pos;
+                while (true) {
+                    while (i < eol && isBlank(bytes.get(i))) {
+                        i++;
+                    }
+                    if (i == eol) {
+                        break;
+                    }
+                    byte b = bytes.get(i);
+                    if ((b != '0' && b != '1') || (i + 1 < eol && !isBlank(bytes.get(i + 1)))) {
+                        throw error(row + 2, i - pos + 1, "invalid cell value, expected 0 or 1");
+                    }
+                    if (x == width) {
+                        throw error(row + 2, i - pos + 1, "too many columns, expected " + width);
+                    }
+                    if (b == '1') {
+                        long bit = (long) row * width + x;
+                        int word = (int) (bit >>> 6);
+                        if (word == result.firstWord) {
+                            result.firstBits |= 1L << bit;
+                        } else if (word == result.lastWord) {
+                            result.lastBits |= 1L << bit;
+                        } else {
+                            words[word] |= 1L << bit;
+                        }
+                    }
+                    x++;
+                    i++;
+                }
+                if (x < width) {
+                    throw error(row + 2, eol - pos + 1, "too few columns, expected " + width + " but found " + x);
+                }
+                row++;
+                pos = nextLineStart(bytes, eol);
+            }
+        } catch (IllegalArgumentException iae) {
+            result.error = iae;
+        }
+        return result;
+    }
+
+    // parse "X SPACE Y" from bytes [0, end) into {X, Y}
+    private static int[] parseHeader(ByteBuffer bytes, int end) {
+        int[] values = new int[2];
+        int i = 0;
+        for (int k = 0; k < 2; k++) {
+            while (i < end && isBlank(bytes.get(i))) {
+                i++;
+            }
+            int startColumn = i + 1;
+            long value = 0;
+            int digits = 0;
+            while (i < end && bytes.get(i) >= '0' && bytes.get(i) <= '9') {
+                value = value * 10 + (bytes.get(i) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw error(1, startColumn, "board size too large");
+                }
+                digits++;
+                i++;
+            }
+            if (digits == 0 || (i < end && !isBlank(bytes.get(i)))) {
+                throw error(1, i + 1, "invalid size information in the header");
+            }
+            if (value == 0) {
+                throw error(1, startColumn, "board size must be positive");
+            }
+            values[k] = (int) value;
+        }
+        while (i < end && isBlank(bytes.get(i))) {
+            i++;
+        }
+        if (i != end) {
+            throw error(1, i + 1, "invalid size information in the header");
+        }
+        if ((long) values[0] * values[1] > Integer.MAX_VALUE) {
+            throw error(1, 1, "board size too large");
+        }
+        return values;
+    }
+
+    // count lines starting in [start, end), where end is a line start or end of file
+    private static int countLines(ByteBuffer bytes, int start, int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b == '\n' || (b == '\r' && (i + 1 == bytes.limit() || bytes.get(i + 1) != '\n'))) {
+                lines++;
+            }
+        }
+        if (end > start && end == bytes.limit() && !isNewline(bytes.get(end - 1))) {
+            lines++; // last line without a newline
+        }
+        return lines;
+    }
+
+    // smallest line start >= pos, or end of file
+    private static int alignToLineStart(ByteBuffer bytes, int pos) {
+        while (pos < bytes.limit() && pos > 0) {
+            byte prev = bytes.get(pos - 1);
+            if (prev == '\n' || (prev == '\r' && bytes.get(pos) != '\n')) {
+                return pos;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    // index of the newline ending the line containing pos, or end of file
+    private static int lineEnd(ByteBuffer bytes, int pos) {
+        while (pos < bytes.limit() && !isNewline(bytes.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // index of the line following the newline at eol
+    private static int nextLineStart(ByteBuffer bytes, int eol) {
+        if (eol < bytes.limit() && bytes.get(eol) == '\r') {
+            eol++;
+            if (eol < bytes.limit() && bytes.get(eol) == '\n') {
+                eol++;
+            }
+            return eol;
+        }
+        return Math.min(eol + 1, bytes.limit());
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isNewline(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static IllegalArgumentException error(int line, int column, String message) {
+        return new IllegalArgumentException("line " + line + ", column " + column + ": " + message);
+    }
+}
@@ -6,6 +6,12 @@ package minesweeper.server;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import minesweeper.Board;
 
@@ -15,7 +21,25 @@ import minesweeper.Board;
 public class MinesweeperServer {
 
     // System thread safety argument
-    //   TODO Problem 5
+    //   - Board is threadsafe (monitor pattern). Each request reads the current
+    //     board from an AtomicReference once, so a reload never splits a request
+    //     across two boards.
+    //   - Requests are applied to the board holding the read lock of requestLock;
+    //     shutdown() takes the write lock, so it waits for requests being applied
+    //     and no request is applied after it (shuttingDown is checked under the
+    //     lock). Reading requests, parsing reload files and writing responses
+    //     happen without the lock, so a slow client cannot hold up shutdown().
+    //   - clients is a concurrent set; connection threads are owned by connections.
+    //     serve() registers each accepted socket holding the read lock of
+    //     requestLock, and only if shuttingDown is false, so every socket is
+    //     either shut down by shutdown() (which shuts down the input of clients
+    //     under the write lock, and closes any still open after the timeout) or
+    //     closed by serve() itself.
+    //   - Player requests additionally run holding the fair boardAccess lock, and each
+    //     connection's rate is limited by its own TokenBucket, confined to its thread.
+    //   - trafficLog and boardPlayed are only used holding boardAccess, so the log
+    //     starts on an unplayed board and its order is the order in which
+    //     requests were applied to the board.
 
     /** Default server port. */
     private static final int DEFAULT_PORT = 4444;
@@ -23,13 +47,45 @@ public class MinesweeperServer {
     private static final int MAXIMUM_PORT = 65535;
     /** Default square board size. */
     private static final int DEFAULT_SIZE = 10;
+    /** Default sustained request rate allowed per connection, in requests per second. */
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 50;
+    /** Default number of requests a connection may send in a burst. */
+    private static final int DEFAULT_REQUEST_BURST = 20;
+    /** Maximum time shutdown() waits for connection threads to exit, in seconds. */
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
 
     /** Socket for receiving incoming connections. */
     private final ServerSocket serverSocket;
     /** True if the server should *not* disconnect a client after a BOOM message. */
     private final boolean debug;
 
-    private final Board board;
+    /** Board currently being played; replaced as a whole by the reload command. */
+    private final AtomicReference<Board> board;
+    /** Held for reading while a request runs, for writing while shutting down. */
+    private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
+    /** Sockets of connected clients. */
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    /** Threads handling client connections. */
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    /**
+     * Fair lock serializing player requests on the board in arrival order.
+     * Each connection has at most one request outstanding, so FIFO order is
+     * round-robin across players and no player can starve the others.
+     */
+    private final ReentrantLock boardAccess = new ReentrantLock(true);
+    /** Sustained request rate allowed per connection, in requests per second. */
+    private final double requestsPerSecond;
+    /** Number of requests a connection may send in a burst. */
+    private final int requestBurst;
+    /** Source of connection ids for the traffic log. */
+    private final AtomicInteger nextConnectionId = new AtomicInteger();
+    /** Log of applied requests, or null if traffic is not being recorded; guarded by boardAccess. */
+    private TrafficLog trafficLog = null;
+
+    /** True iff a player request has been applied to the current board; guarded by boardAccess. */
+    private boolean boardPlayed = false;
+    /** True once shutdown() has been called. */
+    private volatile boolean shuttingDown = false;
 
     private static int clientCount = 0;
 
@@ -52,17 +108,46 @@ public class MinesweeperServer {
      * 
      * @param port port number, requires 0 <= port <= 65535
      * @param debug debug mode flag
+     * @param board board to play on
      * @throws IOException if an error occurs opening the server socket
      */
     public MinesweeperServer(int port, boolean debug, Board board) throws IOException {
+        this(port, debug, board, DEFAULT_REQUESTS_PER_SECOND, DEFAULT_REQUEST_BURST);
+    }
+
+    /**
+     * Make a MinesweeperServer that listens for connections on port and limits
+     * each connection to a sustained rate of requests; faster clients are delayed.
+     * 
+     * @param port port number, requires 0 <= port <= 65535
+     * @param debug debug mode flag
+     * @param board board to play on
+     * @param requestsPerSecond sustained requests per second allowed per connection, requires > 0
+     * @param requestBurst requests a connection may send at once before being delayed, requires > 0
+     * @throws IOException if an error occurs opening the server socket
+     */
+    public MinesweeperServer(int port, boolean debug, Board board,
+            double requestsPerSecond, int requestBurst) throws IOException {
+        if (requestsPerSecond <= 0 || requestBurst <= 0) {
+            throw new IllegalArgumentException("rate limit must be positive");
+        }
         serverSocket = new ServerSocket(port);
         this.debug = debug;
-        this.board = board;
+        this.board = new AtomicReference<>(board);
+        this.requestsPerSecond = requestsPerSecond;
+        this.requestBurst = requestBurst;
+    }
+
+    /**
+     * @return the port this server is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
     }
 
     /**
      * Run the server, listening for client connections and handling them.
-     * Never returns unless an exception is thrown.
+     * Returns after shutdown() is called; otherwise never returns unless an exception is thrown.
      * 
      * @throws IOException if the main server socket is broken
      *                     (IOExceptions from individual clients do *not* terminate serve())
@@ -70,15 +155,37 @@ public class MinesweeperServer {
     public void serve() throws IOException {
         while (true) {
             // block until a client connects
-            Socket socket = serverSocket.accept();
-            Thread t = new Thread(new Runnable() {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException se) {
+                if (shuttingDown) {
+                    return;
+                }
+                throw se;
+            }
+            requestLock.readLock().lock();
+            try {
+                if (shuttingDown) {
+                    // accepted just before the server socket closed
+                    socket.close();
+                    return;
+                }
+                clients.add(socket);
+            } finally {
+                requestLock.readLock().unlock();
+            }
+            Runnable connection = new Runnable() {
                 @Override
                 public void run() {
                     try {
                         handleConnection(socket);
                     } catch (IOException ioe) {
-                        ioe.printStackTrace(); // but don't terminate serve()
+                        if (!shuttingDown) {
+                            ioe.printStackTrace(); // but don't terminate serve()
+                        }
                     } finally {
+                        clients.remove(socket);
                         try {
                             socket.close();
                         } catch (IOException e) {
@@ -86,8 +193,86 @@ public class MinesweeperServer {
                         }
                     }
                 }
-            });
-            t.start();
+            };
+            try {
+                connections.execute(connection);
+            } catch (RejectedExecutionException ree) {
+                // shutting down
+                clients.remove(socket);
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Shut down the server: stop accepting connections and reading requests, let
+     * requests already being applied to the board finish and send their responses,
+     * then disconnect every client. A client that does not read its responses is
+     * disconnected after SHUTDOWN_TIMEOUT_SECONDS.
+     * serve() returns once the server socket is closed.
+     * 
+     * @throws IOException if an error occurs closing the server socket
+     * @throws InterruptedException if interrupted while waiting for connections to close
+     */
+    public void shutdown() throws IOException, InterruptedException {
+        shuttingDown = true;
+        serverSocket.close();
+        requestLock.writeLock().lock();
+        try {
+            for (Socket socket : clients) {
+                try {
+                    socket.shutdownInput(); // each connection sends what it owes, then sees EOF
+                } catch (IOException ioe) {
+                    // already closed by its connection
+                }
+            }
+        } finally {
+            requestLock.writeLock().unlock();
+        }
+        connections.shutdownNow(); // wake connections waiting on their rate limit
+        if (!connections.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            // connections still blocked writing to clients that stopped reading
+            for (Socket socket : clients) {
+                socket.close();
+            }
+            connections.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        boardAccess.lock();
+        try {
+            if (trafficLog != null) {
+                trafficLog.close();
+                trafficLog = null;
+            }
+        } finally {
+            boardAccess.unlock();
+        }
+    }
+
+    /**
+     * Start recording every player request applied to the board, with its
+     * connection, time and response, to file (see TrafficLog and TrafficReplay).
+     * Recording stops at shutdown().
+     * The log only records the layout of the board, not what players have dug
+     * and flagged, so recording must start before any player request is
+     * applied to the current board, or after a reload.
+     * 
+     * @param file file to write the log to; overwritten
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if a player request has been applied to the current board
+     */
+    public void recordTraffic(File file) throws IOException {
+        boardAccess.lock();
+        try {
+            if (boardPlayed) {
+                throw new IllegalStateException("board already played; record from the start or after a reload");
+            }
+            if (trafficLog != null) {
+                trafficLog.close();
+            }
+            trafficLog = new TrafficLog(new FileOutputStream(file));
+            trafficLog.board(board.get());
+        } finally {
+            boardAccess.unlock();
         }
     }
 
@@ -104,12 +289,35 @@ public class MinesweeperServer {
         int playerCount = MinesweeperServer.getClientCount();
         try {
             // HELLO message
+            Board current = board.get();
             String hello = "Welcome to Minesweeper. Board: "
-                    + board.getWidth() + " columns by " + board.getHeight()
+                    + current.getWidth() + " columns by " + current.getHeight()
                     + " rows. Players: " + playerCount + " including you. Type 'help' for help.";
             out.println(hello);
+            boolean admin = socket.getInetAddress().isLoopbackAddress();
+            int connection = nextConnectionId.incrementAndGet();
+            TokenBucket limiter = new TokenBucket(requestsPerSecond, requestBurst);
             for (String line = in.readLine(); line != null; line = in.readLine()) {
-                String output = handleRequest(line);
+                try {
+                    limiter.acquire();
+                } catch (InterruptedException ie) {
+                    break; // shutting down
+                }
+                String output;
+                if (admin && line.startsWith("reload ")) {
+                    output = reload(new File(line.substring("reload ".length())));
+                } else {
+                    requestLock.readLock().lock();
+                    try {
+                        if (shuttingDown) {
+                            break;
+                        }
+                        output = handleRequest(line, connection);
+                    } finally {
+                        requestLock.readLock().unlock();
+                    }
+                }
+                // written without the lock, so a client that stops reading cannot hold up shutdown()
                 if (output == null) {
                     break; // bye
                 }
@@ -128,24 +336,56 @@ public class MinesweeperServer {
 
     /**
      * Handler for client input, performing requested operations and returning an output message.
+     * Requires the caller holds the read lock of requestLock.
+     * 
+     * @param input message from client
+     * @param connection id of the client's connection
+     * @return message to client, or null if none
+     */
+    private String handleRequest(String input, int connection) {
+        boardAccess.lock();
+        try {
+            String output = handleBoardRequest(input, this.board.get());
+            boardPlayed = true;
+            if (trafficLog != null) {
+                try {
+                    trafficLog.request(connection, input, output);
+                } catch (IOException ioe) {
+                    ioe.printStackTrace(); // stop recording, but keep serving
+                    trafficLog = null;
+                }
+            }
+            return output;
+        } finally {
+            boardAccess.unlock();
+        }
+    }
+
+    /**
+     * Perform a player request against board.
+     * Requires the caller holds boardAccess, or is the only user of board.
      * 
      * @param input message from client
+     * @param board board to play on
      * @return message to client, or null if none
      */
-    private String handleRequest(String input) {
-        String regex = "(look)|(help)|(bye)|"
+    static String handleBoardRequest(String input, Board board) {
+        String regex = "(look)|(hint)|(help)|(bye)|"
                      + "(dig -?\\d+ -?\\d+)|(flag -?\\d+ -?\\d+)|(deflag -?\\d+ -?\\d+)";
         if ( ! input.matches(regex)) {
             // invalid input
-            return "Commands: look, dig X Y, flag X Y, deflag X Y, help, bye";
+            return "Commands: look, hint, dig X Y, flag X Y, deflag X Y, help, bye";
         }
         String[] tokens = input.split(" ");
         if (tokens[0].equals("look")) {
             // 'look' request
             return board.getBoardMessage();
+        } else if (tokens[0].equals("hint")) {
+            // 'hint' request
+            return board.getHint().orElse("no hint");
         } else if (tokens[0].equals("help")) {
             // 'help' request
-            return "Commands: look, dig X Y, flag X Y, deflag X Y, help, bye";
+            return "Commands: look, hint, dig X Y, flag X Y, deflag X Y, help, bye";
         } else if (tokens[0].equals("bye")) {
             // 'bye' request
             return null;
@@ -184,6 +424,45 @@ public class MinesweeperServer {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Admin command: load a board from file and swap it in for all players.
+     * The file is read by the calling connection's thread without holding any
+     * lock, so other players keep playing on the old board meanwhile and
+     * shutdown() does not wait for the parse; only the swap is a request.
+     * 
+     * @param file board file in the format described in main(..)
+     * @return message to the admin client describing the result
+     */
+    private String reload(File file) {
+        Board next;
+        try {
+            next = readFile(file);
+        } catch (IOException | IllegalArgumentException e) {
+            return "reload failed: " + e.getMessage();
+        }
+        requestLock.readLock().lock();
+        boardAccess.lock();
+        try {
+            if (shuttingDown) {
+                return "reload failed: server shutting down";
+            }
+            board.set(next);
+            boardPlayed = false;
+            if (trafficLog != null) {
+                try {
+                    trafficLog.board(next);
+                } catch (IOException ioe) {
+                    ioe.printStackTrace(); // stop recording, but keep serving
+                    trafficLog = null;
+                }
+            }
+        } finally {
+            boardAccess.unlock();
+            requestLock.readLock().unlock();
+        }
+        return "reloaded: " + next.getWidth() + " columns by " + next.getHeight() + " rows";
+    }
+
     /**
      * Start a MinesweeperServer using the given arguments.
      * 
@@ -315,51 +594,14 @@ public class MinesweeperServer {
 
     /**
      * Read a file to board.
-     * @param file
+     * @param file board file in the format described in main(..)
      * @return a board
-     * @throws IOException
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed, with the line
+     *         and column of the error in the message
      */
     private static Board readFile(File file) throws IOException {
-        // try-with-resources clause
-        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
-            String firstLine = in.readLine();
-            if (firstLine == null) {
-                throw new RuntimeException("File is empty");
-            }
-            String[] sizes = firstLine.trim().split("\\s+");
-            if (sizes.length != 2) {
-                throw new RuntimeException("Invalid size information in the header.");
-            }
-            int sizeX = Integer.parseInt(sizes[0]);
-            int sizeY = Integer.parseInt(sizes[1]);
-            boolean[][] bombInfo = new boolean[sizeX][sizeY];
-            for (int i = 0; i < sizeY; i++) {
-                String line = in.readLine();
-                if (line == null) {
-                    throw new RuntimeException("Missing rows in board file");
-                }
-                String[] vals = line.trim().split("\\s+");
-                if (vals.length != sizeX) {
-                    throw new RuntimeException("Invalid number of columns on line");
-                }
-                for (int j = 0; j < sizeX; j++) {
-                    switch (vals[j]) {
-                        case "0":
-                            bombInfo[j][i] = false;
-                            break;
-                        case "1":
-                            bombInfo[j][i] = true;
-                            break;
-                        default:
-                            throw new RuntimeException("Invalid cell value: " + vals[j]);
-                    }
-                }
-            }
-            if (in.readLine() != null) {
-                throw new RuntimeException("Extra rows in board file");
-            }
-            return new Board(sizeX,sizeY, bombInfo);
-        }
+        return BoardFileParser.parse(file);
     }
 
     /**
@@ -0,0 +1,86 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter. The bucket holds up to capacity tokens and gains
+ * rate tokens per second; each acquire() takes one token, waiting for it if
+ * the bucket is empty.
+ */
+class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private final LongSupplier clock;
+    private double tokens;
+    private long lastRefill;
+
+    // Abstraction function:
+    //      represents a bucket holding max(tokens, 0) tokens at time lastRefill;
+    //      negative tokens are tokens already promised to waiting callers.
+    // Representation invariant:
+    //      tokensPerNano > 0, capacity >= 1, tokens <= capacity
+    // Safety from rep exposure:
+    //      All fields are private; only primitives are stored.
+    // Thread safety:
+    //      Monitor pattern; callers sleep outside the lock.
+
+    /**
+     * Make a full token bucket.
+     * @param rate tokens added per second, requires > 0
+     * @param capacity maximum tokens held, requires >= 1
+     */
+    TokenBucket(double rate, int capacity) {
+        this(rate, capacity, System::nanoTime);
+    }
+
+    /**
+     * Make a full token bucket that reads time from clock.
+     * @param rate tokens added per second, requires > 0
+     * @param capacity maximum tokens held, requires >= 1
+     * @param clock monotonic time source in nanoseconds
+     */
+    TokenBucket(double rate, int capacity, LongSupplier clock) {
+        this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert tokensPerNano > 0;
+        assert capacity >= 1;
+        assert tokens <= capacity;
+    }
+
+    /**
+     * Take one token, reserving a future one if the bucket is empty.
+     * @return nanoseconds the caller must wait before the reserved token is
+     *         available, or 0 if a token was available now
+     */
+    synchronized long reserve() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        checkRep();
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    /**
+     * Take one token, waiting until one is available.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import minesweeper.Board;
+
+/**
+ * Compact binary log of the player requests a MinesweeperServer applied to its
+ * board, in the order they were applied, for offline replay by TrafficReplay.
+ *
+ * <p>Format: the int MAGIC, the int VERSION, then records, each a type byte followed by
+ * <pre>
+ *   BOARD:   varint width, varint height, varint n, n bytes of the bomb BitSet
+ *            (bit y * width + x set iff (x,y) has a bomb)
+ *   REQUEST: varint connection id, varint microseconds since the previous record,
+ *            varint n, n bytes of the command in UTF-8,
+ *            varint (response length + 1, or 0 if no response),
+ *            long hash of the response
+ * </pre>
+ * Responses are stored as hashes so that large boards keep the log small.
+ */
+class TrafficLog implements Closeable {
+
+    static final int MAGIC = 0x4d534c47; // "MSLG"
+    static final int VERSION = 2;
+    static final byte BOARD = 1;
+    static final byte REQUEST = 2;
+
+    private final DataOutputStream out;
+    private long lastRecord;
+
+    // Abstraction function:
+    //      represents the log written so far to out; lastRecord is the time of
+    //      the most recent record in System.nanoTime() units.
+    // Representation invariant:
+    //      true
+    // Safety from rep exposure:
+    //      All fields are private; out is never returned.
+    // Thread safety:
+    //      Monitor pattern.
+
+    /**
+     * Start a log on a stream, writing its header.
+     * @param out stream to write to; closed by close()
+     * @throws IOException if the header cannot be written
+     */
+    TrafficLog(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.lastRecord = System.nanoTime();
+    }
+
+    /**
+     * Record that the server started playing on board.
+     * Requires no request has been applied to board yet.
+     * @param board the new board
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void board(Board board) throws IOException {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        byte[] bombs = new byte[(int) (((long) width * height + 7) / 8)];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (board.hasBomb(x, y)) {
+                    int bit = y * width + x;
+                    bombs[bit / 8] |= 1 << (bit % 8);
+                }
+            }
+        }
+        out.writeByte(BOARD);
+        writeVarint(out, width);
+        writeVarint(out, height);
+        writeVarint(out, bombs.length);
+        out.write(bombs);
+        stamp();
+    }
+
+    /**
+     * Record a request applied to the current board.
+     * @param connection id of the connection that sent the request
+     * @param command the request line
+     * @param response the response sent, or null if none
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void request(int connection, String command, String response) throws IOException {
+        out.writeByte(REQUEST);
+        writeVarint(out, connection);
+        writeVarint(out, stamp());
+        // not writeUTF, which cannot write strings over 64KB in modified UTF-8
+        byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+        writeVarint(out, response == null ? 0 : response.length() + 1);
+        out.writeLong(response == null ? 0 : hash(response));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    // microseconds since the previous record
+    private long stamp() {
+        long now = System.nanoTime();
+        long micros = TimeUnit.NANOSECONDS.toMicros(now - lastRecord);
+        lastRecord = now;
+        return micros;
+    }
+
+    /**
+     * @param s a string
+     * @return 64-bit FNV-1a hash of the chars of s
+     */
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Write a non-negative value in 7-bit groups, least significant first.
+     * @param out stream to write to
+     * @param value value to write, requires >= 0
+     * @throws IOException if the value cannot be written
+     */
+    static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Read a value written by writeVarint.
+     * @param in stream to read from
+     * @return the value read
+     * @throws IOException if the value cannot be read or is malformed
+     */
+    static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+}
@@ -0,0 +1,159 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import minesweeper.Board;
+
+/**
+ * Replays a TrafficLog against freshly made boards as fast as possible,
+ * checking that every response matches the recorded one.
+ * Requests are applied one at a time in the recorded order, so a replay is
+ * deterministic and any mismatch points at a behavior change in the board.
+ */
+public class TrafficReplay {
+
+    /**
+     * Makes the board a replay plays on.
+     */
+    @FunctionalInterface
+    public interface BoardMaker {
+        /**
+         * @param width width of the board
+         * @param height height of the board
+         * @param bombs bit (y * width + x) is set iff (x,y) has a bomb
+         * @return a new board with that layout
+         */
+        Board make(int width, int height, BitSet bombs);
+    }
+
+    /**
+     * Outcome of a replay.
+     */
+    public static class Result {
+        private final int requests;
+        private final int mismatches;
+        private final String firstMismatch;
+        private final long nanos;
+
+        private Result(int requests, int mismatches, String firstMismatch, long nanos) {
+            this.requests = requests;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+            this.nanos = nanos;
+        }
+
+        /** @return number of requests replayed */
+        public int getRequests() {
+            return requests;
+        }
+
+        /** @return number of requests whose response differed from the recorded one */
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        /** @return description of the first mismatching request, or null if none */
+        public String getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        /** @return time spent replaying, in nanoseconds */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return requests + " requests in " + String.format("%.3f", seconds) + "s ("
+                    + String.format("%.0f", seconds == 0 ? 0 : requests / seconds) + " requests/s), "
+                    + mismatches + " mismatches"
+                    + (firstMismatch == null ? "" : ", first: " + firstMismatch);
+        }
+    }
+
+    private TrafficReplay() {}
+
+    /**
+     * Replay a traffic log.
+     * @param log stream positioned at the start of a log written by TrafficLog; not closed
+     * @param maker makes a board for each board record in the log
+     * @return counts of replayed and mismatching requests
+     * @throws IOException if the log cannot be read or is malformed
+     */
+    public static Result replay(InputStream log, BoardMaker maker) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(log));
+        if (in.readInt() != TrafficLog.MAGIC || in.readInt() != TrafficLog.VERSION) {
+            throw new IOException("not a traffic log");
+        }
+        Board board = null;
+        int requests = 0;
+        int mismatches = 0;
+        String firstMismatch = null;
+        long start = System.nanoTime();
+        while (true) {
+            int type = in.read();
+            if (type == -1) {
+                break;
+            } else if (type == TrafficLog.BOARD) {
+                int width = (int) TrafficLog.readVarint(in);
+                int height = (int) TrafficLog.readVarint(in);
+                byte[] bombs = new byte[(int) TrafficLog.readVarint(in)];
+                in.readFully(bombs);
+                board = maker.make(width, height, BitSet.valueOf(bombs));
+            } else if (type == TrafficLog.REQUEST) {
+                int connection = (int) TrafficLog.readVarint(in);
+                TrafficLog.readVarint(in); // time since previous record, unused at full speed
+                byte[] bytes = new byte[(int) TrafficLog.readVarint(in)];
+                in.readFully(bytes);
+                String command = new String(bytes, StandardCharsets.UTF_8);
+                long length = TrafficLog.readVarint(in);
+                long hash = in.readLong();
+                if (board == null) {
+                    throw new IOException("request before any board");
+                }
+                String response = MinesweeperServer.handleBoardRequest(command, board);
+                boolean matches = response == null
+                        ? length == 0
+                        : length == response.length() + 1 && hash == TrafficLog.hash(response);
+                if (!matches) {
+                    mismatches++;
+                    if (firstMismatch == null) {
+                        firstMismatch = "request " + requests + " '" + command + "' from connection " + connection;
+                    }
+                }
+                requests++;
+            } else {
+                throw new IOException("unknown record type " + type);
+            }
+        }
+        return new Result(requests, mismatches, firstMismatch, System.nanoTime() - start);
+    }
+
+    /**
+     * Replay a traffic log file against Board and print the result.
+     * 
+     * <br> Usage: TrafficReplay LOGFILE
+     * 
+     * @param args the log file name
+     * @throws IOException if the log cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: TrafficReplay LOGFILE");
+            return;
+        }
+        try (InputStream in = new FileInputStream(args[0])) {
+            System.out.println(replay(in, Board::new));
+        }
+    }
+}
@@ -3,6 +3,9 @@ package minesweeper;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.util.Optional;
+import java.util.Random;
+
 public class BoardTest {
 
     // ----------- Constructor tests -----------
@@ -218,4 +221,67 @@ public class BoardTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    // ----------- getHint -----------
+
+    @Test
+    public void testHintNoneBeforeAnyDig() {
+        Board board = new Board(3, 3);
+        assertFalse(board.getHint().isPresent());
+    }
+
+    @Test
+    public void testHintFlagsLastBomb7x7() {
+        Board board = createBoard7x7();
+        board.dig(4, 1);
+        assertEquals("flag 0 6", board.getHint().get());
+    }
+
+    @Test
+    public void testHintSafeBySubset() {
+        // bomb at (0,1); dig (0,0) and (1,0), both showing 1
+        boolean[][] bombs = {
+                {false, true},
+                {false, false},
+                {false, false}
+        };
+        Board board = new Board(3, 2, bombs);
+        board.dig(0, 0);
+        board.dig(1, 0);
+        // (0,0) sees {(0,1),(1,1)} with 1 bomb, (1,0) sees {(0,1),(1,1),(2,1)} with 1 bomb,
+        // so (2,0) and (2,1) are safe
+        String hint = board.getHint().get();
+        assertTrue(hint, hint.startsWith("dig "));
+        String[] tokens = hint.split(" ");
+        assertFalse(board.hasBomb(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2])));
+    }
+
+    @Test
+    public void testHintsAreSoundOnRandomBoards() {
+        Random random = new Random(6005);
+        for (int trial = 0; trial < 50; trial++) {
+            int width = 8;
+            int height = 8;
+            boolean[][] bombs = new boolean[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    bombs[x][y] = random.nextInt(6) == 0;
+                }
+            }
+            bombs[0][0] = false;
+            Board board = new Board(width, height, bombs);
+            board.dig(0, 0);
+            for (Optional<String> hint = board.getHint(); hint.isPresent(); hint = board.getHint()) {
+                String[] tokens = hint.get().split(" ");
+                int x = Integer.parseInt(tokens[1]);
+                int y = Integer.parseInt(tokens[2]);
+                if (tokens[0].equals("dig")) {
+                    assertFalse("hinted dig hit a bomb", board.dig(x, y));
+                } else {
+                    assertTrue("hinted flag has no bomb", board.hasBomb(x, y));
+                    board.flag(x, y);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+import minesweeper.Board;
+
+/**
+ * Tests for BoardFileParser.
+ */
+public class BoardFileParserTest {
+
+    // Testing strategy
+    //   - newlines: "\n", "\r\n", "\r", last row with/without trailing newline
+    //   - separators: single space, runs of spaces/tabs
+    //   - bombs: none, first cell, last cell, cells in different rows
+    //   - errors: empty file, bad header, bad value, too few/many columns,
+    //     missing/extra rows; check reported line and column
+    //   - chunks: one chunk, many chunks (boundaries inside rows, rows sharing
+    //     bit words across chunks, more chunks than rows); same board as one
+    //     chunk, errors in a later chunk located as with one chunk
+    //   - parse(File): memory-mapped temp file
+
+    private static Board parse(String text) {
+        return BoardFileParser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static void assertError(String text, String expectedPrefix) {
+        try {
+            parse(text);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage(), iae.getMessage().startsWith(expectedPrefix));
+        }
+    }
+
+    @Test
+    public void testParseBombs() {
+        Board board = parse("3 2\n1 0 0\n0 0 1\n");
+        assertEquals(3, board.getWidth());
+        assertEquals(2, board.getHeight());
+        assertTrue(board.hasBomb(0, 0));
+        assertFalse(board.hasBomb(1, 0));
+        assertTrue(board.hasBomb(2, 1));
+        assertFalse(board.hasBomb(0, 1));
+    }
+
+    @Test
+    public void testParseNewlinesAndSeparators() {
+        Board board = parse("2 3\r\n0  1\r0\t0\r\n1 0");
+        assertTrue(board.hasBomb(1, 0));
+        assertFalse(board.hasBomb(0, 1));
+        assertTrue(board.hasBomb(0, 2));
+    }
+
+    @Test
+    public void testParseRowsCrossingWordBoundaries() {
+        StringBuilder text = new StringBuilder("70 3\n");
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 70; x++) {
+                text.append((x + y) % 7 == 0 ? "1" : "0").append(x < 69 ? " " : "\n");
+            }
+        }
+        Board board = parse(text.toString());
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 70; x++) {
+                assertEquals((x + y) % 7 == 0, board.hasBomb(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyFile() {
+        assertError("", "line 1, column 1:");
+    }
+
+    @Test
+    public void testInvalidHeader() {
+        assertError("3 x\n0 0 0\n", "line 1, column 3:");
+        assertError("0 1\n\n", "line 1, column 1:");
+    }
+
+    @Test
+    public void testInvalidCellValue() {
+        assertError("2 2\n0 0\n0 2\n", "line 3, column 3:");
+    }
+
+    @Test
+    public void testWrongColumnCount() {
+        assertError("2 2\n0 0 1\n0 0\n", "line 2, column 5:");
+        assertError("2 2\n0 0\n0\n", "line 3, column 2:");
+    }
+
+    @Test
+    public void testWrongRowCount() {
+        assertError("2 2\n0 0\n", "line 3, column 1:");
+        assertError("2 1\n0 0\n0 0\n", "line 3, column 1:");
+    }
+
+    // a width x height board file with bombs drawn from random, rows separated by newline
+    private static String randomBoard(int width, int height, Random random, String newline) {
+        StringBuilder text = new StringBuilder(width + " " + height + newline);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                text.append(random.nextInt(5) == 0 ? "1" : "0").append(x < width - 1 ? " " : newline);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void assertSameBombs(Board expected, Board actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("(" + x + "," + y + ")", expected.hasBomb(x, y), actual.hasBomb(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testManyChunksSameAsOneChunk() {
+        Random random = new Random(6005);
+        for (String newline : new String[] { "\n", "\r\n", "\r" }) {
+            byte[] text = randomBoard(70, 40, random, newline).getBytes(StandardCharsets.US_ASCII);
+            Board oneChunk = BoardFileParser.parse(ByteBuffer.wrap(text), Integer.MAX_VALUE);
+            for (int chunkBytes : new int[] { 1, 7, 64, 141, 1000 }) {
+                assertSameBombs(oneChunk, BoardFileParser.parse(ByteBuffer.wrap(text), chunkBytes));
+            }
+        }
+    }
+
+    @Test
+    public void testErrorInLaterChunk() {
+        String text = randomBoard(10, 30, new Random(6005), "\n");
+        int row = 25;
+        int start = text.indexOf('\n') + 1 + row * 20;
+        String bad = text.substring(0, start + 4) + "2" + text.substring(start + 5);
+        for (int chunkBytes : new int[] { Integer.MAX_VALUE, 1, 20, 64 }) {
+            try {
+                BoardFileParser.parse(ByteBuffer.wrap(bad.getBytes(StandardCharsets.US_ASCII)), chunkBytes);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException iae) {
+                assertTrue(iae.getMessage(), iae.getMessage().startsWith("line " + (row + 2) + ", column 5:"));
+            }
+        }
+    }
+
+    @Test
+    public void testParseFile() throws IOException {
+        String text = randomBoard(70, 3, new Random(6005), "\n");
+        File file = File.createTempFile("board", ".txt");
+        try {
+            Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+            assertSameBombs(parse(text), BoardFileParser.parse(file));
+        } finally {
+            file.delete();
+        }
+    }
+}
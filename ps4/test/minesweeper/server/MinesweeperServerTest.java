@@ -3,11 +3,289 @@
  */
 package minesweeper.server;
 
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import minesweeper.Board;
+
 /**
- * TODO
+ * Tests for MinesweeperServer shutdown, board reload, rate limiting and hints.
  */
 public class MinesweeperServerTest {
-    
-    // TODO
-    
+
+    // Testing strategy
+    //   shutdown(): with no clients, with a connected client, with clients
+    //     connecting concurrently, with a client that stops reading its responses;
+    //     serve() returns
+    //   reload: valid file swaps the board for all clients, invalid file keeps the old board
+    //   rate limit: requests beyond the burst are delayed
+    //   fairness: a client sending as fast as it can does not starve another client
+    //   hint: before any dig (no hint), after a dig (flag), after following it (no hint);
+    //     listed by help
+
+    private static final String LOCALHOST = "127.0.0.1";
+
+    private static Thread startServer(MinesweeperServer server) {
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static Socket connect(MinesweeperServer server) throws IOException {
+        Socket socket = new Socket(LOCALHOST, server.getPort());
+        socket.setSoTimeout(3000);
+        return socket;
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownWithoutClients() throws IOException, InterruptedException {
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(2, 2));
+        Thread thread = startServer(server);
+        server.shutdown();
+        thread.join();
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownDisconnectsClients() throws IOException, InterruptedException {
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(2, 2));
+        Thread thread = startServer(server);
+        Socket socket = connect(server);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        assertTrue(in.readLine().startsWith("Welcome"));
+        out.println("look");
+        assertEquals("- -", in.readLine());
+        assertEquals("- -", in.readLine());
+
+        server.shutdown();
+        thread.join();
+        assertNull("expected server to close the connection", in.readLine());
+        socket.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testShutdownWhileClientsConnect() throws IOException, InterruptedException {
+        for (int round = 0; round < 10; round++) {
+            MinesweeperServer server = new MinesweeperServer(0, false, new Board(2, 2));
+            Thread thread = startServer(server);
+            List<Socket> sockets = Collections.synchronizedList(new ArrayList<>());
+            Thread connector = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        sockets.add(connect(server));
+                    } catch (IOException ioe) {
+                        return; // refused: the server socket is closed
+                    }
+                }
+            });
+            connector.start();
+            server.shutdown();
+            thread.join();
+            connector.join();
+            for (Socket socket : sockets) {
+                // a socket accepted during shutdown must be closed too, not left to
+                // time out; one still in the backlog is reset
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                try {
+                    String line = in.readLine();
+                    if (line != null) {
+                        assertTrue(line, line.startsWith("Welcome"));
+                        assertNull(in.readLine());
+                    }
+                } catch (SocketException reset) {
+                    // closed without being served
+                }
+                socket.close();
+            }
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testShutdownWithClientNotReading() throws IOException, InterruptedException {
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(1000, 1000));
+        Thread thread = startServer(server);
+        Socket socket = connect(server);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        assertTrue(in.readLine().startsWith("Welcome"));
+        // 20 responses of about 2MB each, far more than the socket buffers hold
+        for (int i = 0; i < 20; i++) {
+            out.println("look");
+        }
+        Thread.sleep(500);
+
+        server.shutdown(); // must not wait forever for the blocked response
+        thread.join();
+        socket.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testReload() throws IOException, InterruptedException {
+        File file = File.createTempFile("board", ".txt");
+        Files.write(file.toPath(), "3 1\n0 0 1\n".getBytes());
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(2, 2));
+        Thread thread = startServer(server);
+        Socket socket = connect(server);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        assertTrue(in.readLine().startsWith("Welcome"));
+
+        out.println("reload " + file.getAbsolutePath() + ".missing");
+        assertTrue(in.readLine().startsWith("reload failed"));
+        out.println("reload " + file.getAbsolutePath());
+        assertEquals("reloaded: 3 columns by 1 rows", in.readLine());
+        out.println("look");
+        assertEquals("- - -", in.readLine());
+        out.println("dig 2 0");
+        assertEquals("BOOM!", in.readLine());
+
+        socket.close();
+        server.shutdown();
+        thread.join();
+        file.delete();
+    }
+
+    @Test(timeout = 10000)
+    public void testRateLimitDelaysRequests() throws IOException, InterruptedException {
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(1, 1), 10, 1);
+        Thread thread = startServer(server);
+        Socket socket = connect(server);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        assertTrue(in.readLine().startsWith("Welcome"));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            out.println("look");
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals("-", in.readLine());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        // first request uses the burst, the other three wait 100ms each
+        assertTrue("elapsed " + elapsedMillis + "ms", elapsedMillis >= 250);
+
+        socket.close();
+        server.shutdown();
+        thread.join();
+    }
+
+    @Test(timeout = 20000)
+    public void testBusyClientDoesNotStarveOthers() throws IOException, InterruptedException {
+        final int size = 200;
+        BitSet bombs = new BitSet();
+        bombs.set(size + 1); // (1,1), so digging (0,0) reveals only (0,0)
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(size, size, bombs),
+                1_000_000, 1_000_000);
+        Thread thread = startServer(server);
+        Socket quiet = connect(server);
+        BufferedReader quietIn = new BufferedReader(new InputStreamReader(quiet.getInputStream()));
+        PrintWriter quietOut = new PrintWriter(quiet.getOutputStream(), true);
+        assertTrue(quietIn.readLine().startsWith("Welcome"));
+        Socket busy = connect(server);
+        BufferedReader busyIn = new BufferedReader(new InputStreamReader(busy.getInputStream()));
+        PrintWriter busyOut = new PrintWriter(busy.getOutputStream(), true);
+        assertTrue(busyIn.readLine().startsWith("Welcome"));
+
+        // the busy client sends looks without waiting for their responses, and
+        // counts the responses until the first one that shows the quiet client's dig
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread sender = new Thread(() -> {
+            while (!done.get()) {
+                busyOut.println("look");
+            }
+        });
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger firstDug = new AtomicInteger(-1);
+        Thread receiver = new Thread(() -> {
+            try {
+                while (firstDug.get() < 0) {
+                    String first = busyIn.readLine();
+                    for (int y = 1; y < size; y++) {
+                        busyIn.readLine();
+                    }
+                    if (!first.startsWith("-")) {
+                        firstDug.set(received.get());
+                    }
+                    received.incrementAndGet();
+                }
+            } catch (IOException ioe) {
+                // leaves firstDug unset, which fails the test
+            }
+        });
+        sender.start();
+        receiver.start();
+        while (received.get() < 20) {
+            Thread.sleep(1);
+        }
+
+        int sent = received.get();
+        quietOut.println("dig 0 0");
+        for (int y = 0; y < size; y++) {
+            assertNotNull(quietIn.readLine());
+        }
+        receiver.join();
+        done.set(true);
+        // responses the busy client has not read yet were applied before the dig
+        // too, so the bound allows for the socket buffers as well as for the lock
+        assertTrue("dig applied after " + (firstDug.get() - sent) + " busy requests",
+                firstDug.get() >= 0 && firstDug.get() - sent <= 50);
+
+        busy.close();
+        quiet.close();
+        server.shutdown();
+        thread.join();
+        sender.join();
+    }
+
+    @Test(timeout = 10000)
+    public void testHint() throws IOException, InterruptedException {
+        // 3 columns by 1 row, bomb in the last column
+        boolean[][] bombs = { { false }, { false }, { true } };
+        MinesweeperServer server = new MinesweeperServer(0, false, new Board(3, 1, bombs));
+        Thread thread = startServer(server);
+        Socket socket = connect(server);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        assertTrue(in.readLine().startsWith("Welcome"));
+
+        out.println("help");
+        assertTrue(in.readLine().contains("hint"));
+        out.println("hint");
+        assertEquals("no hint", in.readLine());
+        out.println("dig 0 0");
+        assertEquals("  1 -", in.readLine());
+        out.println("hint");
+        assertEquals("flag 2 0", in.readLine());
+        out.println("flag 2 0");
+        assertEquals("  1 F", in.readLine());
+        out.println("hint");
+        assertEquals("no hint", in.readLine());
+
+        socket.close();
+        server.shutdown();
+        thread.join();
+    }
 }
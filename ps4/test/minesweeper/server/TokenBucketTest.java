@@ -0,0 +1,50 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Tests for TokenBucket.
+ */
+public class TokenBucketTest {
+
+    // Testing strategy
+    //   reserve(): within burst, beyond burst, after refill, refill capped at capacity
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testBurstThenWait() {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(SECOND / 10, bucket.reserve());
+        assertEquals(2 * SECOND / 10, bucket.reserve());
+    }
+
+    @Test
+    public void testRefill() {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(10, 1, now::get);
+        assertEquals(0, bucket.reserve());
+        now.addAndGet(SECOND / 10);
+        assertEquals(0, bucket.reserve());
+    }
+
+    @Test
+    public void testRefillCappedAtCapacity() {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        now.addAndGet(100 * SECOND);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0);
+    }
+}
@@ -0,0 +1,172 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package minesweeper.server;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import minesweeper.Board;
+
+/**
+ * Tests for TrafficLog and TrafficReplay.
+ */
+public class TrafficReplayTest {
+
+    // Testing strategy
+    //   - log recorded by a live server replays with no mismatches
+    //   - replay against a board with a different layout reports mismatches
+    //   - recording started after the board was played is refused
+    //   - request line: short, over 64KB encoded, non-ASCII
+    //   - varints: 0, one byte, several bytes
+    //   - not a log
+
+    private static boolean[][] bombs() {
+        return new boolean[][] {
+                { false, false, true },
+                { false, false, false },
+                { true, false, false }
+        };
+    }
+
+    private static File record() throws IOException, InterruptedException {
+        File file = File.createTempFile("traffic", ".log");
+        MinesweeperServer server = new MinesweeperServer(0, true, new Board(3, 3, bombs()));
+        server.recordTraffic(file);
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        });
+        thread.start();
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(3000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            in.readLine(); // hello
+            String[] commands = { "look", "flag 1 1", "dig 0 0", "deflag 1 1", "dig 2 0", "hint", "dig 0 2", "look" };
+            for (String command : commands) {
+                out.println(command);
+                String line = in.readLine();
+                if (!line.equals("BOOM!") && !command.equals("hint")) {
+                    in.readLine();
+                    in.readLine();
+                }
+            }
+        }
+        server.shutdown();
+        thread.join();
+        return file;
+    }
+
+    @Test(timeout = 10000)
+    public void testReplayMatchesRecording() throws IOException, InterruptedException {
+        File file = record();
+        try (InputStream in = new FileInputStream(file)) {
+            TrafficReplay.Result result = TrafficReplay.replay(in, Board::new);
+            assertEquals(8, result.getRequests());
+            assertEquals(0, result.getMismatches());
+            assertNull(result.getFirstMismatch());
+        }
+        file.delete();
+    }
+
+    @Test(timeout = 10000)
+    public void testReplayDetectsDivergence() throws IOException, InterruptedException {
+        File file = record();
+        try (InputStream in = new FileInputStream(file)) {
+            TrafficReplay.Result result = TrafficReplay.replay(in,
+                    (width, height, bombs) -> new Board(width, height, new BitSet()));
+            assertTrue(result.getMismatches() > 0);
+            assertNotNull(result.getFirstMismatch());
+        }
+        file.delete();
+    }
+
+    @Test(timeout = 10000)
+    public void testRecordAfterPlayRefused() throws IOException, InterruptedException {
+        MinesweeperServer server = new MinesweeperServer(0, true, new Board(3, 3, bombs()));
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        });
+        thread.start();
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(3000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            in.readLine(); // hello
+            out.println("dig 0 0");
+            in.readLine();
+        }
+        File file = File.createTempFile("traffic", ".log");
+        try {
+            server.recordTraffic(file);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException ise) {
+            // expected: the log could not show that (0,0) was dug
+        } finally {
+            server.shutdown();
+            thread.join();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLongRequestLine() throws IOException {
+        StringBuilder line = new StringBuilder("look ");
+        while (line.length() < 50000) {
+            line.append("\u00e9x"); // two UTF-8 bytes and one
+        }
+        String command = line.toString();
+        Board board = new Board(3, 3, bombs());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TrafficLog log = new TrafficLog(bytes)) {
+            log.board(board);
+            log.request(1, command, MinesweeperServer.handleBoardRequest(command, board));
+            log.request(1, "look", MinesweeperServer.handleBoardRequest("look", board));
+        }
+        TrafficReplay.Result result = TrafficReplay.replay(new ByteArrayInputStream(bytes.toByteArray()), Board::new);
+        assertEquals(2, result.getRequests());
+        assertEquals(0, result.getMismatches());
+    }
+
+    @Test
+    public void testVarintRoundTrip() throws IOException {
+        long[] values = { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            TrafficLog.writeVarint(out, value);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, TrafficLog.readVarint(in));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotALog() throws IOException {
+        TrafficReplay.replay(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }), Board::new);
+    }
+}